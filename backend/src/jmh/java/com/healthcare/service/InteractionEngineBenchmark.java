@@ -0,0 +1,90 @@
+package com.healthcare.service;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.healthcare.model.Medicine;
+import com.healthcare.model.User;
+import com.healthcare.repository.MedicineRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Time of one {@link InteractionEngine#check} against a synthetic verified catalogue, for a
+ * patient with several allergies and current medications. Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="InteractionEngine"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InteractionEngineBenchmark {
+
+    @Param({"1000", "5000", "20000"})
+    private int catalogueSize;
+
+    private InteractionEngine engine;
+    private User patient;
+    private InteractionEngine.MedicineProfile verified;
+    private InteractionEngine.MedicineProfile scanned;
+
+    @Setup
+    public void setUp() {
+        List<Medicine> catalogue = new ArrayList<>();
+        catalogue.add(medicine("m-dolo", "Dolo 650", "Paracetamol 650mg", "[\"Avoid alcohol.\", \"Do not take with warfarin; it raises the bleeding risk.\"]"));
+        catalogue.add(medicine("m-warf", "Warf 5", "Warfarin", "[\"Avoid aspirin.\"]"));
+        for (int i = 0; i < catalogueSize; i++) {
+            catalogue.add(medicine("m-" + i, "Brand" + i, "Ingredient" + i + " + Ingredient" + (i + 1),
+                    "[\"Do not combine with ingredient" + (i + 7) + ".\", \"Store below 25 degrees.\"]"));
+        }
+        MedicineRepository repository = mock(MedicineRepository.class);
+        when(repository.findByVerifiedTrue()).thenReturn(catalogue);
+
+        engine = new InteractionEngine(repository, new SimpleMeterRegistry());
+        engine.refresh();
+
+        patient = new User("patient@example.com", "hash", "patient", "Benchmark Patient");
+        patient.setAllergies("Penicillin, sulfa drugs, Ingredient12");
+        patient.setCurrentMedications("Warf 5, Brand100, Brand" + (catalogueSize / 2) + " and metformin 500mg twice daily, Brand" + (catalogueSize - 2));
+        verified = engine.profileOf("m-dolo").orElseThrow();
+        scanned = engine.profileOf("Augmentin 625", "Amoxicillin + Clavulanic Acid", "[\"Avoid with methotrexate.\"]");
+    }
+
+    @Benchmark
+    public InteractionEngine.CheckResult checkVerifiedMedicine() {
+        return engine.check(patient, verified);
+    }
+
+    @Benchmark
+    public InteractionEngine.CheckResult checkScannedMedicine() {
+        return engine.check(patient, scanned);
+    }
+
+    private static Medicine medicine(String id, String brandName, String generic, String warnings) {
+        Medicine medicine = new Medicine();
+        medicine.setId(id);
+        medicine.setBrandName(brandName);
+        medicine.setGeneric(generic);
+        medicine.setWarnings(warnings);
+        medicine.setVerified(true);
+        return medicine;
+    }
+}
@@ -0,0 +1,41 @@
+package com.healthcare.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Dedicated Reactor schedulers for blocking work, so a burst in one pipeline cannot
+ * starve the shared bounded-elastic pool used by everything else. Each scheduler has a
+ * thread cap and a task queue limit; once the queue is full further work is rejected
+ * with a {@link java.util.concurrent.RejectedExecutionException}, which the controllers
+ * turn into 503 responses instead of letting requests pile up.
+ */
+@Configuration
+public class SchedulerConfig {
+
+    /** Writing, moving and hashing uploaded files. */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler fileIoScheduler(@Value("${scheduler.file-io.threads:16}") int threads,
+                                     @Value("${scheduler.file-io.queue-size:1000}") int queueSize) {
+        return Schedulers.newBoundedElastic(threads, queueSize, "file-io");
+    }
+
+    /** Image decoding, Tesseract and PDF text extraction. Defaults to one thread per core. */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler ocrScheduler(@Value("${scheduler.ocr.threads:0}") int threads,
+                                  @Value("${scheduler.ocr.queue-size:200}") int queueSize) {
+        int threadCap = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return Schedulers.newBoundedElastic(threadCap, queueSize, "ocr");
+    }
+
+    /** Blocking MongoDB repository calls made from reactive chains. */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler dbScheduler(@Value("${scheduler.db.threads:16}") int threads,
+                                 @Value("${scheduler.db.queue-size:1000}") int queueSize) {
+        return Schedulers.newBoundedElastic(threads, queueSize, "db");
+    }
+}
@@ -0,0 +1,78 @@
+package com.healthcare.controller;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.healthcare.model.VerificationStatus;
+import com.healthcare.service.PendingMedicineReviewService;
+
+@RestController
+@RequestMapping("/api/admin/medicines")
+@CrossOrigin(origins = "http://localhost:5173")
+public class AdminMedicineController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminMedicineController.class);
+
+    private final PendingMedicineReviewService pendingMedicineReviewService;
+
+    public AdminMedicineController(PendingMedicineReviewService pendingMedicineReviewService) {
+        this.pendingMedicineReviewService = pendingMedicineReviewService;
+    }
+
+    // Keyset-paged review queue; pass the previous page's nextCursor as "after"
+    @GetMapping("/pending")
+    public ResponseEntity<PendingMedicineReviewService.PendingPage> getPendingMedicines(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(pendingMedicineReviewService.getPendingPage(after, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/pending/decisions")
+    public ResponseEntity<PendingMedicineReviewService.DecisionResult> applyDecisions(@RequestBody DecisionsRequest request) {
+        if (request.getDecisions() == null || request.getDecisions().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            List<PendingMedicineReviewService.Decision> decisions = request.getDecisions().stream()
+                    .map(decision -> new PendingMedicineReviewService.Decision(decision.getId(), decision.getStatus()))
+                    .toList();
+            return ResponseEntity.ok(pendingMedicineReviewService.applyDecisions(decisions));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected pending medicine decisions: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    public static class DecisionsRequest {
+        private List<DecisionRequest> decisions;
+
+        // Getters and Setters
+        public List<DecisionRequest> getDecisions() { return decisions; }
+        public void setDecisions(List<DecisionRequest> decisions) { this.decisions = decisions; }
+    }
+
+    public static class DecisionRequest {
+        private String id;
+        private VerificationStatus status;
+
+        // Getters and Setters
+        public String getId() { return id; }
+        public void setId(String id) { this.id = id; }
+        public VerificationStatus getStatus() { return status; }
+        public void setStatus(VerificationStatus status) { this.status = status; }
+    }
+}
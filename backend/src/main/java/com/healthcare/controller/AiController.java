@@ -1,8 +1,11 @@
 package com.healthcare.controller;
 
 import com.healthcare.service.AiService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.Map;
@@ -31,8 +34,30 @@ public class AiController {
             language = "english";
         }
 
-        return aiService.queryAI(message, language)
+        // Chat is open to anonymous callers and often personal, so answers are shared through the
+        // cache only when the client marks the prompt as generic with "cache": "true"
+        boolean cacheable = "true".equalsIgnoreCase(request.get("cache"));
+
+        return aiService.queryAI(message, language, cacheable)
                 .map(response -> ResponseEntity.ok(Map.of("response", response)))
                 .onErrorResume(e -> Mono.just(ResponseEntity.internalServerError().body(Map.of("error", "Failed to process AI query"))));
     }
+
+    // Same request body as /query; answer text arrives as "chunk" events followed by one "done" event.
+    // A failure, even after some chunks, ends the stream with an "error" event and no "done".
+    @PostMapping(value = "/query/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamQuery(@RequestBody Map<String, String> request) {
+        String message = request.get("message");
+        if (message == null || message.trim().isEmpty()) {
+            return Flux.just(ServerSentEvent.<String>builder().event("error").data("Message is required").build());
+        }
+        String language = request.get("language") != null ? request.get("language") : "english";
+        boolean cacheable = "true".equalsIgnoreCase(request.get("cache"));
+
+        return aiService.streamAI(message, language, cacheable)
+                .map(chunk -> ServerSentEvent.builder(chunk).event("chunk").build())
+                .concatWith(Flux.just(ServerSentEvent.<String>builder().event("done").data("").build()))
+                .onErrorResume(e -> Flux.just(ServerSentEvent.<String>builder().event("error")
+                        .data(e instanceof AiService.AiUnavailableException ? e.getMessage() : "Failed to process AI query").build()));
+    }
 }
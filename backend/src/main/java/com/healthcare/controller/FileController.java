@@ -0,0 +1,39 @@
+package com.healthcare.controller;
+
+import java.io.IOException;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.healthcare.service.FileStore;
+
+@RestController
+@RequestMapping("/api/files")
+@CrossOrigin(origins = "http://localhost:5173")
+public class FileController {
+
+    private final FileStore fileStore;
+
+    public FileController(FileStore fileStore) {
+        this.fileStore = fileStore;
+    }
+
+    // Streams a stored file; Spring answers Range requests for Resource bodies with 206 partial content
+    @GetMapping("/{bucket}/{name:.+}")
+    public ResponseEntity<Resource> getFile(@PathVariable String bucket, @PathVariable String name) throws IOException {
+        return fileStore.open(bucket, name)
+                .map(stored -> ResponseEntity.ok()
+                        .header("Accept-Ranges", "bytes")
+                        .contentType(stored.contentType() != null
+                                ? MediaType.parseMediaType(stored.contentType())
+                                : MediaType.APPLICATION_OCTET_STREAM)
+                        .body(stored.resource()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,76 @@
+package com.healthcare.controller;
+
+import java.util.Optional;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.healthcare.model.User;
+import com.healthcare.repository.UserRepository;
+import com.healthcare.service.InteractionEngine;
+
+@RestController
+@RequestMapping("/api/interactions")
+@CrossOrigin(origins = "http://localhost:5173")
+public class InteractionController {
+
+    private final InteractionEngine interactionEngine;
+    private final UserRepository userRepository;
+
+    public InteractionController(InteractionEngine interactionEngine, UserRepository userRepository) {
+        this.interactionEngine = interactionEngine;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Checks a catalogue medicine (by {@code medicineId}) or a scanned/prescribed medicine
+     * (by {@code brandName}, {@code generic} and optional {@code warnings}) against the
+     * patient's allergies and current medications.
+     */
+    @PostMapping("/check")
+    public ResponseEntity<InteractionEngine.CheckResult> check(@RequestBody CheckRequest request) {
+        if (request.getPatientId() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<User> patient = userRepository.findById(request.getPatientId());
+        if (patient.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Optional<InteractionEngine.MedicineProfile> medicine;
+        if (request.getMedicineId() != null) {
+            medicine = interactionEngine.profileOf(request.getMedicineId());
+        } else if (request.getBrandName() != null || request.getGeneric() != null) {
+            medicine = Optional.of(interactionEngine.profileOf(request.getBrandName(), request.getGeneric(), request.getWarnings()));
+        } else {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return medicine.map(profile -> ResponseEntity.ok(interactionEngine.check(patient.get(), profile)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    public static class CheckRequest {
+        private String patientId;
+        private String medicineId;
+        private String brandName;
+        private String generic;
+        private String warnings;
+
+        // Getters and Setters
+        public String getPatientId() { return patientId; }
+        public void setPatientId(String patientId) { this.patientId = patientId; }
+        public String getMedicineId() { return medicineId; }
+        public void setMedicineId(String medicineId) { this.medicineId = medicineId; }
+        public String getBrandName() { return brandName; }
+        public void setBrandName(String brandName) { this.brandName = brandName; }
+        public String getGeneric() { return generic; }
+        public void setGeneric(String generic) { this.generic = generic; }
+        public String getWarnings() { return warnings; }
+        public void setWarnings(String warnings) { this.warnings = warnings; }
+    }
+}
@@ -4,6 +4,7 @@ import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,6 +22,8 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.healthcare.dto.MedicalReportSummaryDTO;
+import com.healthcare.model.LabResult;
 import com.healthcare.model.MedicalReport;
 import com.healthcare.model.User;
 import com.healthcare.repository.UserRepository;
@@ -92,29 +95,54 @@ public class MedicalReportController {
     }
 
     @GetMapping("/patient/{patientId}")
-    public ResponseEntity<List<MedicalReportDTO>> getReportsByPatient(@PathVariable String patientId) {
+    public ResponseEntity<List<MedicalReportSummaryDTO>> getReportsByPatient(@PathVariable String patientId) {
         Optional<User> patientOpt = userService.findById(patientId);
         if (patientOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
         User patient = patientOpt.get();
-        List<MedicalReport> reports = medicalReportService.getReportsByPatient(patient);
-        List<MedicalReportDTO> dtos = reports.stream().map(MedicalReportDTO::new).toList();
+        List<MedicalReport> reports = medicalReportService.getReportSummariesByPatient(patient);
+        List<MedicalReportSummaryDTO> dtos = reports.stream().map(MedicalReportSummaryDTO::new).toList();
         return ResponseEntity.ok(dtos);
     }
 
     @GetMapping("/doctor/{doctorId}")
-    public ResponseEntity<List<MedicalReportDTO>> getReportsByDoctor(@PathVariable String doctorId) {
+    public ResponseEntity<List<MedicalReportSummaryDTO>> getReportsByDoctor(@PathVariable String doctorId) {
         Optional<User> doctorOpt = userService.findById(doctorId);
         if (doctorOpt.isEmpty()) {
             return ResponseEntity.ok(Collections.emptyList());
         }
         User doctor = doctorOpt.get();
-        List<MedicalReport> reports = medicalReportService.getReportsByDoctor(doctor);
-        List<MedicalReportDTO> dtos = reports.stream().map(MedicalReportDTO::new).toList();
+        List<MedicalReport> reports = medicalReportService.getReportSummariesByDoctor(doctor);
+        List<MedicalReportSummaryDTO> dtos = reports.stream().map(MedicalReportSummaryDTO::new).toList();
         return ResponseEntity.ok(dtos);
     }
 
+    // Full report including the extracted analysis; ?fields=a,b limits what is loaded
+    @GetMapping("/{reportId}")
+    public ResponseEntity<MedicalReportDTO> getReport(@PathVariable String reportId,
+                                                      @RequestParam(required = false) List<String> fields) {
+        Optional<MedicalReport> report = fields == null || fields.isEmpty()
+                ? medicalReportService.getReport(reportId)
+                : medicalReportService.getReport(reportId, fields);
+        return report.map(r -> ResponseEntity.ok(new MedicalReportDTO(r)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/patient/{patientId}/trend")
+    public ResponseEntity<List<LabResult>> getLabTrend(@PathVariable String patientId,
+                                                       @RequestParam String testName,
+                                                       @RequestParam(required = false) String from,
+                                                       @RequestParam(required = false) String to) {
+        Optional<User> patientOpt = userService.findById(patientId);
+        if (patientOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        LocalDate fromDate = from != null ? LocalDate.parse(from) : null;
+        LocalDate toDate = to != null ? LocalDate.parse(to) : null;
+        return ResponseEntity.ok(medicalReportService.getLabTrend(patientOpt.get(), testName, fromDate, toDate));
+    }
+
     @PostMapping
     public ResponseEntity<MedicalReport> createReport(@RequestBody CreateReportRequest request) {
         Optional<User> patientOpt = userService.findById(request.getPatientId());
@@ -164,6 +192,11 @@ public class MedicalReportController {
                 return medicalReportService.uploadAndExtractReport(file, patient, reportType, LocalDate.parse(reportDate), description)
                         .map(report -> ResponseEntity.ok(new MedicalReportDTO(report)));
             })
+            // Also covers OcrPoolSaturatedException, a RejectedExecutionException
+            .onErrorResume(RejectedExecutionException.class, e -> {
+                logger.warn("Rejecting medical report upload, OCR or processing queues are full: {}", e.getMessage());
+                return Mono.just(ResponseEntity.status(503).build());
+            })
             .onErrorResume(e -> {
                 logger.error("Error during medical report upload: {}", e.getMessage(), e);
                 return Mono.just(ResponseEntity.status(500).build());
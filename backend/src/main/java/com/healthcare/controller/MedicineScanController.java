@@ -1,8 +1,19 @@
 package com.healthcare.controller;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -11,10 +22,16 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.healthcare.model.MedicineScan;
+import com.healthcare.model.User;
+import com.healthcare.repository.UserRepository;
+import com.healthcare.service.InteractionEngine;
 import com.healthcare.service.MedicineScanService;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @RestController
@@ -24,25 +41,41 @@ public class MedicineScanController {
 
     private static final Logger logger = LoggerFactory.getLogger(MedicineScanController.class);
     private final MedicineScanService medicineScanService;
+    private final InteractionEngine interactionEngine;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${scan.batch.max-files:20}")
+    private int batchMaxFiles;
+
+    @Value("${scan.batch.concurrency:4}")
+    private int batchConcurrency;
+
+    @Value("${scan.batch.deadline:120s}")
+    private Duration batchDeadline;
 
-    public MedicineScanController(MedicineScanService medicineScanService) {
+    public MedicineScanController(MedicineScanService medicineScanService, InteractionEngine interactionEngine,
+                                  UserRepository userRepository) {
         this.medicineScanService = medicineScanService;
+        this.interactionEngine = interactionEngine;
+        this.userRepository = userRepository;
     }
 
+    /**
+     * Scans one medicine image. When the caller is signed in, the result also carries
+     * {@code interactionAlerts}: the scanned medicine checked against their allergies and
+     * current medications.
+     */
     @PostMapping("/medicine")
-    public Mono<ResponseEntity<ObjectNode>> scanMedicine(@RequestParam("file") MultipartFile file) {
+    public Mono<ResponseEntity<ObjectNode>> scanMedicine(@RequestParam("file") MultipartFile file, Authentication authentication) {
         logger.info("Received request for medicine scan for file: {}", file.getOriginalFilename());
+        Optional<User> patient = patientOf(authentication);
 
         return medicineScanService.processMedicineScan(file)
             .map(medicineScan -> {
                 try {
-                    ObjectMapper objectMapper = new ObjectMapper();
-                    ObjectNode jsonNode = (ObjectNode) objectMapper.readTree(medicineScan.getStructuredData());
-
-                    // If structuredData contains an error, add isUnknown flag
-                    if (jsonNode.has("error")) {
-                        jsonNode.put("isUnknown", true);
-                    }
+                    ObjectNode jsonNode = toResponseBody(medicineScan);
+                    patient.ifPresent(user -> addInteractionAlerts(jsonNode, user));
                     logger.info("Successfully processed medicine scan for file: {}", file.getOriginalFilename());
                     return ResponseEntity.ok(jsonNode);
                 } catch (JsonProcessingException e) {
@@ -50,9 +83,106 @@ public class MedicineScanController {
                     throw new RuntimeException("Failed to parse AI response.", e);
                 }
             })
+            // Also covers OcrPoolSaturatedException, a RejectedExecutionException
+            .onErrorResume(RejectedExecutionException.class, e -> {
+                logger.warn("Rejecting medicine scan, OCR or processing queues are full: {}", e.getMessage());
+                return Mono.just(ResponseEntity.status(503).build());
+            })
             .onErrorResume(e -> {
                 logger.error("An error occurred during medicine scan processing: {}", e.getMessage(), e);
                 return Mono.just(ResponseEntity.status(500).build());
             });
     }
+
+    /**
+     * Scans several images in one request. Files are processed with bounded concurrency,
+     * each stage on the scan pipeline's own schedulers, and each result is streamed as one NDJSON line as soon as
+     * it is ready, so the order of lines follows completion, not upload order. Items that
+     * cannot finish before the request deadline are reported with status {@code TIMEOUT}.
+     */
+    @PostMapping(value = "/medicine/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<ObjectNode>> scanMedicineBatch(@RequestParam("files") List<MultipartFile> files,
+                                                              Authentication authentication) {
+        if (files.isEmpty() || files.size() > batchMaxFiles) {
+            return ResponseEntity.badRequest().build();
+        }
+        logger.info("Received batch medicine scan for {} files", files.size());
+        Optional<User> patient = patientOf(authentication);
+
+        Instant deadline = Instant.now().plus(batchDeadline);
+        Flux<ObjectNode> results = Flux.range(0, files.size())
+            .flatMap(index -> scanBatchItem(index, files.get(index), deadline, patient), batchConcurrency);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(results);
+    }
+
+    private Mono<ObjectNode> scanBatchItem(int index, MultipartFile file, Instant deadline, Optional<User> patient) {
+        return Mono.defer(() -> {
+            Duration remaining = Duration.between(Instant.now(), deadline);
+            if (remaining.isNegative() || remaining.isZero()) {
+                return Mono.error(new TimeoutException("Batch deadline exceeded"));
+            }
+            return medicineScanService.processMedicineScan(file).timeout(remaining);
+        })
+            .map(medicineScan -> {
+                ObjectNode item = batchItem(index, file, "OK");
+                try {
+                    ObjectNode result = toResponseBody(medicineScan);
+                    patient.ifPresent(user -> addInteractionAlerts(result, user));
+                    item.set("result", result);
+                } catch (JsonProcessingException e) {
+                    logger.error("Failed to parse JSON from AI response for {}: {}", file.getOriginalFilename(), e.getMessage());
+                    item.put("status", "ERROR");
+                }
+                return item;
+            })
+            .onErrorResume(TimeoutException.class, e -> Mono.just(batchItem(index, file, "TIMEOUT")))
+            .onErrorResume(RejectedExecutionException.class, e -> Mono.just(batchItem(index, file, "BUSY")))
+            .onErrorResume(e -> {
+                logger.error("Batch scan of {} failed: {}", file.getOriginalFilename(), e.getMessage(), e);
+                return Mono.just(batchItem(index, file, "ERROR"));
+            });
+    }
+
+    // Scanning is open to anonymous callers; only a signed-in patient gets an interaction check.
+    // Users are unique per (email, userType), so the lookup needs both parts of the "email:userType" principal
+    private Optional<User> patientOf(Authentication authentication) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserDetails userDetails)) {
+            return Optional.empty();
+        }
+        String[] parts = userDetails.getUsername().split(":", 2);
+        if (parts.length != 2 || !"patient".equalsIgnoreCase(parts[1])) {
+            return Optional.empty();
+        }
+        return userRepository.findByEmailAndUserType(parts[0], parts[1]);
+    }
+
+    // The check works on precompiled data and the patient already loaded, so it is cheap enough to run inline
+    private void addInteractionAlerts(ObjectNode body, User patient) {
+        if (body.has("error")) {
+            return;
+        }
+        JsonNode warnings = body.get("warnings");
+        InteractionEngine.MedicineProfile medicine = interactionEngine.profileOf(body.path("brandName").asText(null),
+                body.path("generic").asText(null), warnings == null ? null : warnings.toString());
+        body.set("interactionAlerts", objectMapper.valueToTree(interactionEngine.check(patient, medicine).alerts()));
+    }
+
+    private static ObjectNode batchItem(int index, MultipartFile file, String status) {
+        ObjectNode item = new ObjectMapper().createObjectNode();
+        item.put("index", index);
+        item.put("fileName", file.getOriginalFilename());
+        item.put("status", status);
+        return item;
+    }
+
+    public static ObjectNode toResponseBody(MedicineScan medicineScan) throws JsonProcessingException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ObjectNode jsonNode = (ObjectNode) objectMapper.readTree(medicineScan.getStructuredData());
+
+        // If structuredData contains an error, add isUnknown flag
+        if (jsonNode.has("error")) {
+            jsonNode.put("isUnknown", true);
+        }
+        return jsonNode;
+    }
 }
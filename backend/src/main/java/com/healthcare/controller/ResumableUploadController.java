@@ -0,0 +1,201 @@
+package com.healthcare.controller;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.healthcare.model.MedicalReport;
+import com.healthcare.model.MedicineScan;
+import com.healthcare.model.UploadSession;
+import com.healthcare.model.User;
+import com.healthcare.repository.UserRepository;
+import com.healthcare.service.ResumableUploadService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import reactor.core.publisher.Mono;
+
+/**
+ * Resumable chunked uploads for reports and medicine scans.
+ * <ol>
+ *   <li>{@code POST /api/uploads} creates a session and returns its location.</li>
+ *   <li>{@code PATCH /api/uploads/{id}} with an {@code Upload-Offset} header appends the request body.</li>
+ *   <li>{@code HEAD /api/uploads/{id}} reports the current offset so an interrupted client can resume.</li>
+ * </ol>
+ * The PATCH that delivers the final byte runs the normal report or scan processing and returns its result.
+ */
+@RestController
+@RequestMapping("/api/uploads")
+@CrossOrigin(origins = "http://localhost:5173", exposedHeaders = {"Location", "Upload-Offset", "Upload-Length"})
+public class ResumableUploadController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumableUploadController.class);
+
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final String UPLOAD_LENGTH = "Upload-Length";
+
+    private final ResumableUploadService resumableUploadService;
+    private final UserRepository userRepository;
+
+    public ResumableUploadController(ResumableUploadService resumableUploadService, UserRepository userRepository) {
+        this.resumableUploadService = resumableUploadService;
+        this.userRepository = userRepository;
+    }
+
+    public static class CreateUploadRequest {
+        private String purpose;
+        private String fileName;
+        private String contentType;
+        private long length;
+        private String reportType;
+        private String reportDate;
+        private String description;
+
+        // Getters and Setters
+        public String getPurpose() { return purpose; }
+        public void setPurpose(String purpose) { this.purpose = purpose; }
+        public String getFileName() { return fileName; }
+        public void setFileName(String fileName) { this.fileName = fileName; }
+        public String getContentType() { return contentType; }
+        public void setContentType(String contentType) { this.contentType = contentType; }
+        public long getLength() { return length; }
+        public void setLength(long length) { this.length = length; }
+        public String getReportType() { return reportType; }
+        public void setReportType(String reportType) { this.reportType = reportType; }
+        public String getReportDate() { return reportDate; }
+        public void setReportDate(String reportDate) { this.reportDate = reportDate; }
+        public String getDescription() { return description; }
+        public void setDescription(String description) { this.description = description; }
+    }
+
+    @PostMapping
+    public ResponseEntity<?> createUpload(@RequestBody CreateUploadRequest request, Authentication authentication) {
+        String owner = ownerOf(authentication);
+        if (owner == null) {
+            return ResponseEntity.status(403).build();
+        }
+        try {
+            UploadSession session = resumableUploadService.createSession(request.getPurpose(), owner, request.getFileName(),
+                    request.getContentType(), request.getLength(), request.getReportType(),
+                    request.getReportDate() != null ? LocalDate.parse(request.getReportDate()) : null, request.getDescription());
+            return ResponseEntity.created(URI.create("/api/uploads/" + session.getId()))
+                    .header(UPLOAD_OFFSET, "0")
+                    .header(UPLOAD_LENGTH, String.valueOf(session.getLength()))
+                    .body(session);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @RequestMapping(value = "/{uploadId}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> getOffset(@PathVariable String uploadId, Authentication authentication) {
+        Optional<UploadSession> session = ownedSession(uploadId, authentication);
+        return session.<ResponseEntity<Void>>map(s -> ResponseEntity.ok()
+                        .header(UPLOAD_OFFSET, String.valueOf(s.getOffset()))
+                        .header(UPLOAD_LENGTH, String.valueOf(s.getLength()))
+                        .header("Cache-Control", "no-store")
+                        .build())
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<UploadSession> getUpload(@PathVariable String uploadId, Authentication authentication) {
+        return ownedSession(uploadId, authentication)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PatchMapping("/{uploadId}")
+    public Mono<ResponseEntity<?>> appendChunk(@PathVariable String uploadId,
+                                               @RequestHeader(UPLOAD_OFFSET) long offset,
+                                               HttpServletRequest request,
+                                               Authentication authentication) {
+        Optional<UploadSession> sessionOpt = ownedSession(uploadId, authentication);
+        if (sessionOpt.isEmpty()) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+
+        UploadSession session;
+        try {
+            session = resumableUploadService.appendChunk(sessionOpt.get(), offset, request.getInputStream(), request.getContentLengthLong());
+        } catch (IllegalStateException e) {
+            return Mono.just(ResponseEntity.status(409).header(UPLOAD_OFFSET, String.valueOf(sessionOpt.get().getOffset())).body(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.status(413).body(e.getMessage()));
+        } catch (IOException e) {
+            // The connection dropped mid-chunk; the client resumes from the offset reported by HEAD
+            logger.warn("Chunk upload for {} interrupted: {}", uploadId, e.getMessage());
+            return Mono.just(ResponseEntity.status(500).build());
+        }
+
+        if (!session.isComplete()) {
+            return Mono.just(ResponseEntity.noContent().header(UPLOAD_OFFSET, String.valueOf(session.getOffset())).build());
+        }
+
+        User patient = null;
+        if (UploadSession.PURPOSE_REPORT.equals(session.getPurpose())) {
+            // The owner is the "email:userType" principal; users are unique only on that pair
+            String[] owner = session.getOwner().split(":", 2);
+            patient = owner.length == 2 ? userRepository.findByEmailAndUserType(owner[0], owner[1]).orElse(null) : null;
+            if (patient == null) {
+                return Mono.just(ResponseEntity.status(403).build());
+            }
+        }
+
+        String finalOffset = String.valueOf(session.getOffset());
+        return resumableUploadService.complete(session, patient)
+                .<ResponseEntity<?>>map(result -> ResponseEntity.ok().header(UPLOAD_OFFSET, finalOffset).body(toResponseBody(result)))
+                .onErrorResume(RejectedExecutionException.class, e -> {
+                    logger.warn("Rejecting completed upload {}, processing is saturated: {}", uploadId, e.getMessage());
+                    return Mono.just(ResponseEntity.status(503).build());
+                })
+                .onErrorResume(e -> {
+                    logger.error("Error processing completed upload {}: {}", uploadId, e.getMessage(), e);
+                    return Mono.just(ResponseEntity.status(500).build());
+                });
+    }
+
+    private Object toResponseBody(Object result) {
+        if (result instanceof MedicalReport report) {
+            return new MedicalReportController.MedicalReportDTO(report);
+        }
+        if (result instanceof MedicineScan scan) {
+            try {
+                return MedicineScanController.toResponseBody(scan);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to parse AI response.", e);
+            }
+        }
+        return result;
+    }
+
+    private Optional<UploadSession> ownedSession(String uploadId, Authentication authentication) {
+        String owner = ownerOf(authentication);
+        return resumableUploadService.findSession(uploadId)
+                .filter(session -> session.getOwner().equals(owner));
+    }
+
+    private static String ownerOf(Authentication authentication) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserDetails userDetails)) {
+            return null;
+        }
+        return userDetails.getUsername();
+    }
+}
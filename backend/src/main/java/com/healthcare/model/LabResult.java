@@ -0,0 +1,92 @@
+package com.healthcare.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * One parsed test result from a medical report, stored separately so a patient's
+ * values for a given test can be range-scanned by date.
+ */
+@Document(collection = "lab_results")
+@CompoundIndex(name = "patient_test_date", def = "{'patientId': 1, 'testKey': 1, 'reportDate': 1}")
+public class LabResult {
+
+    @Id
+    private String id;
+
+    private String patientId;
+
+    @Indexed
+    private String reportId;
+
+    private String testName;
+
+    private String testKey; // normalized testName used for lookups
+
+    private String value;
+
+    private Double numericValue;
+
+    private String unit;
+
+    private String referenceRange;
+
+    private String status;
+
+    private LocalDate reportDate;
+
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public LabResult() {}
+
+    public LabResult(String patientId, String reportId, String testName, LocalDate reportDate) {
+        this.patientId = patientId;
+        this.reportId = reportId;
+        this.testName = testName;
+        this.reportDate = reportDate;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getPatientId() { return patientId; }
+    public void setPatientId(String patientId) { this.patientId = patientId; }
+
+    public String getReportId() { return reportId; }
+    public void setReportId(String reportId) { this.reportId = reportId; }
+
+    public String getTestName() { return testName; }
+    public void setTestName(String testName) { this.testName = testName; }
+
+    public String getTestKey() { return testKey; }
+    public void setTestKey(String testKey) { this.testKey = testKey; }
+
+    public String getValue() { return value; }
+    public void setValue(String value) { this.value = value; }
+
+    public Double getNumericValue() { return numericValue; }
+    public void setNumericValue(Double numericValue) { this.numericValue = numericValue; }
+
+    public String getUnit() { return unit; }
+    public void setUnit(String unit) { this.unit = unit; }
+
+    public String getReferenceRange() { return referenceRange; }
+    public void setReferenceRange(String referenceRange) { this.referenceRange = referenceRange; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public LocalDate getReportDate() { return reportDate; }
+    public void setReportDate(LocalDate reportDate) { this.reportDate = reportDate; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -6,7 +6,9 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.text.Normalizer;
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 @Document(collection = "medicines")
 @Data
@@ -17,6 +19,8 @@ public class Medicine {
     @Id
     private String id;
 
+    private String medicineKey; // normalized brandName + manufacturer, see keyOf
+
     private String brandName;
 
     private String generic;
@@ -41,4 +45,18 @@ public class Medicine {
 
     private LocalDateTime createdAt;
 
+    /**
+     * Builds the lookup key shared by {@code medicines} and {@code pending_medicines}:
+     * brand name and manufacturer, Unicode-normalised, lower-cased and with whitespace collapsed.
+     */
+    public static String keyOf(String brandName, String manufacturer) {
+        return fold(brandName) + "|" + fold(manufacturer);
+    }
+
+    private static String fold(String value) {
+        if (value == null) {
+            return "";
+        }
+        return Normalizer.normalize(value, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
 }
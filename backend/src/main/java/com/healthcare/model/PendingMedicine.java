@@ -17,6 +17,8 @@ public class PendingMedicine {
     @Id
     private String id;
 
+    private String medicineKey; // same normalization as Medicine.keyOf
+
     private String brandName;
 
     private String generic;
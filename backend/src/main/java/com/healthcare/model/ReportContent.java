@@ -0,0 +1,56 @@
+package com.healthcare.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Content-addressed record of a processed report file, keyed by the SHA-256 of its bytes.
+ * Lets identical uploads reuse the stored file, the extracted text and the AI analysis.
+ */
+@Document(collection = "report_contents")
+public class ReportContent {
+
+    @Id
+    private String contentHash;
+
+    private String fileUrl;
+
+    private String extractedText;
+
+    private String reportType;
+
+    private String extractedData;
+
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public ReportContent() {}
+
+    public ReportContent(String contentHash, String fileUrl, String extractedText) {
+        this.contentHash = contentHash;
+        this.fileUrl = fileUrl;
+        this.extractedText = extractedText;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public String getFileUrl() { return fileUrl; }
+    public void setFileUrl(String fileUrl) { this.fileUrl = fileUrl; }
+
+    public String getExtractedText() { return extractedText; }
+    public void setExtractedText(String extractedText) { this.extractedText = extractedText; }
+
+    public String getReportType() { return reportType; }
+    public void setReportType(String reportType) { this.reportType = reportType; }
+
+    public String getExtractedData() { return extractedData; }
+    public void setExtractedData(String extractedData) { this.extractedData = extractedData; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,53 @@
+package com.healthcare.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Hashes of a scanned medicine image and the scan it produced: the SHA-256 of the bytes,
+ * which lets an identical upload reuse the result, and the perceptual hash, which finds
+ * candidates for similar photos. Entries expire through a TTL index on {@code createdAt}.
+ */
+@Document(collection = "scan_image_hashes")
+public class ScanImageHash {
+
+    @Id
+    private String id;
+
+    private long hash;
+
+    // Hex SHA-256 of the image bytes; absent on entries written before it was recorded
+    private String contentHash;
+
+    private String medicineScanId;
+
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public ScanImageHash() {}
+
+    public ScanImageHash(long hash, String contentHash, String medicineScanId) {
+        this.hash = hash;
+        this.contentHash = contentHash;
+        this.medicineScanId = medicineScanId;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public long getHash() { return hash; }
+    public void setHash(long hash) { this.hash = hash; }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public String getMedicineScanId() { return medicineScanId; }
+    public void setMedicineScanId(String medicineScanId) { this.medicineScanId = medicineScanId; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
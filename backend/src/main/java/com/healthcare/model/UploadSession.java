@@ -0,0 +1,115 @@
+package com.healthcare.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * State of a resumable, chunked upload. Chunks are appended to a part file on disk;
+ * {@code offset} is the number of bytes received so far.
+ */
+@Document(collection = "upload_sessions")
+public class UploadSession {
+
+    public static final String PURPOSE_REPORT = "report";
+    public static final String PURPOSE_MEDICINE_SCAN = "medicine-scan";
+
+    public static final String STATUS_IN_PROGRESS = "IN_PROGRESS";
+    public static final String STATUS_PROCESSING = "PROCESSING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Id
+    private String id;
+
+    private String purpose;
+
+    private String owner;
+
+    private String fileName;
+
+    private String contentType;
+
+    private long length;
+
+    private long offset;
+
+    private String status;
+
+    private String resultId;
+
+    // Report metadata, used when purpose is "report"
+    private String reportType;
+
+    private LocalDate reportDate;
+
+    private String description;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public UploadSession() {}
+
+    public UploadSession(String purpose, String owner, String fileName, String contentType, long length) {
+        this.purpose = purpose;
+        this.owner = owner;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.length = length;
+        this.offset = 0;
+        this.status = STATUS_IN_PROGRESS;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    public boolean isComplete() {
+        return offset >= length;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getPurpose() { return purpose; }
+    public void setPurpose(String purpose) { this.purpose = purpose; }
+
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public long getLength() { return length; }
+    public void setLength(long length) { this.length = length; }
+
+    public long getOffset() { return offset; }
+    public void setOffset(long offset) { this.offset = offset; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getResultId() { return resultId; }
+    public void setResultId(String resultId) { this.resultId = resultId; }
+
+    public String getReportType() { return reportType; }
+    public void setReportType(String reportType) { this.reportType = reportType; }
+
+    public LocalDate getReportDate() { return reportDate; }
+    public void setReportDate(LocalDate reportDate) { this.reportDate = reportDate; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
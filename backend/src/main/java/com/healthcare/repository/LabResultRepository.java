@@ -0,0 +1,18 @@
+package com.healthcare.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.healthcare.model.LabResult;
+
+@Repository
+public interface LabResultRepository extends MongoRepository<LabResult, String> {
+    // Served by the (patientId, testKey, reportDate) index as a single range scan
+    @Query(value = "{ 'patientId': ?0, 'testKey': ?1, 'reportDate': { $gte: ?2, $lte: ?3 } }", sort = "{ 'reportDate': 1 }")
+    List<LabResult> findTrend(String patientId, String testKey, LocalDate from, LocalDate to);
+    void deleteByReportId(String reportId);
+}
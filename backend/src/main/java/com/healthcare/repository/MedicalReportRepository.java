@@ -3,6 +3,7 @@ package com.healthcare.repository;
 import java.util.List;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.healthcare.model.MedicalReport;
@@ -13,4 +14,10 @@ public interface MedicalReportRepository extends MongoRepository<MedicalReport,
     List<MedicalReport> findByPatient(User patient);
     List<MedicalReport> findByDoctor(User doctor);
     List<MedicalReport> findByPatientAndStatus(User patient, String status);
+
+    // List projections: the extracted analysis can be large and is only needed for a single report
+    @Query(fields = "{ 'extractedData': 0 }")
+    List<MedicalReport> findSummariesByPatient(User patient);
+    @Query(fields = "{ 'extractedData': 0 }")
+    List<MedicalReport> findSummariesByDoctor(User doctor);
 }
@@ -0,0 +1,10 @@
+package com.healthcare.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.healthcare.model.ReportContent;
+
+@Repository
+public interface ReportContentRepository extends MongoRepository<ReportContent, String> {
+}
@@ -0,0 +1,15 @@
+package com.healthcare.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.healthcare.model.ScanImageHash;
+
+@Repository
+public interface ScanImageHashRepository extends MongoRepository<ScanImageHash, String> {
+    List<ScanImageHash> findByCreatedAtAfterOrderByCreatedAtAsc(LocalDateTime createdAt);
+    void deleteByMedicineScanId(String medicineScanId);
+}
@@ -0,0 +1,14 @@
+package com.healthcare.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.healthcare.model.UploadSession;
+
+@Repository
+public interface UploadSessionRepository extends MongoRepository<UploadSession, String> {
+    List<UploadSession> findByStatusAndUpdatedAtBefore(String status, LocalDateTime updatedAt);
+}
@@ -0,0 +1,107 @@
+package com.healthcare.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Multi-pattern whole-word matcher. All patterns are compiled into one automaton, so a text is
+ * scanned once regardless of how many patterns there are. Patterns and texts are normalised
+ * with {@link #normalize(String)} so matching ignores case and punctuation.
+ */
+final class AhoCorasickMatcher<T> {
+
+    record Match<T>(int start, int end, String pattern, T value) {}
+
+    private static final class Node {
+        final Map<Character, Node> next = new HashMap<>();
+        Node fail;
+        // Patterns ending at this node, including those inherited through the failure link
+        final List<Map.Entry<String, ?>> outputs = new ArrayList<>();
+    }
+
+    private final Node root = new Node();
+
+    private AhoCorasickMatcher() {}
+
+    static <T> AhoCorasickMatcher<T> build(Map<String, T> patterns) {
+        AhoCorasickMatcher<T> matcher = new AhoCorasickMatcher<>();
+        for (Map.Entry<String, T> pattern : patterns.entrySet()) {
+            String normalized = normalize(pattern.getKey());
+            if (normalized.isEmpty()) {
+                continue;
+            }
+            Node node = matcher.root;
+            for (int i = 0; i < normalized.length(); i++) {
+                node = node.next.computeIfAbsent(normalized.charAt(i), key -> new Node());
+            }
+            node.outputs.add(Map.entry(normalized, pattern.getValue()));
+        }
+        matcher.linkFailures();
+        return matcher;
+    }
+
+    // Breadth-first, so every node's failure target is finished before the node itself
+    private void linkFailures() {
+        Queue<Node> queue = new ArrayDeque<>();
+        for (Node child : root.next.values()) {
+            child.fail = root;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.remove();
+            for (Map.Entry<Character, Node> edge : node.next.entrySet()) {
+                Node child = edge.getValue();
+                Node fallback = node.fail;
+                while (fallback != null && !fallback.next.containsKey(edge.getKey())) {
+                    fallback = fallback.fail;
+                }
+                child.fail = fallback == null ? root : fallback.next.get(edge.getKey());
+                child.outputs.addAll(child.fail.outputs);
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Finds every pattern occurring in {@code normalizedText} as whole words.
+     * The text must already be normalised.
+     */
+    @SuppressWarnings("unchecked")
+    List<Match<T>> findAll(String normalizedText) {
+        List<Match<T>> matches = new ArrayList<>();
+        Node node = root;
+        for (int i = 0; i < normalizedText.length(); i++) {
+            char c = normalizedText.charAt(i);
+            while (node != root && !node.next.containsKey(c)) {
+                node = node.fail;
+            }
+            node = node.next.getOrDefault(c, root);
+            for (Map.Entry<String, ?> output : node.outputs) {
+                int start = i - output.getKey().length() + 1;
+                if (isWordBoundary(normalizedText, start - 1) && isWordBoundary(normalizedText, i + 1)) {
+                    matches.add(new Match<>(start, i + 1, output.getKey(), (T) output.getValue()));
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static boolean isWordBoundary(String text, int index) {
+        return index < 0 || index >= text.length() || text.charAt(index) == ' ';
+    }
+
+    /**
+     * Lower-cases and replaces every run of non-alphanumeric characters with a single space.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+}
@@ -1,19 +1,43 @@
 package com.healthcare.service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.healthcare.dto.GeminiRequest;
 import com.healthcare.dto.GeminiResponse;
 
-
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Service
@@ -23,19 +47,162 @@ public class AiService {
 
     private static final Logger logger = LoggerFactory.getLogger(AiService.class);
 
+    private static final String NO_RESPONSE = "Sorry, I couldn't process your request.";
+    static final String RATE_LIMITED = "AI service is currently rate limited. Please try again later.";
+    static final String UNAVAILABLE = "AI service is temporarily unavailable. Please try again shortly.";
+    // In-flight keys of calls whose answers must not be cached; cache keys are hex and never carry it
+    private static final String UNCACHED_KEY_PREFIX = "uncached:";
+
     @Value("${gemini.api.key}")
     private String geminiApiKey;
 
     @Value("${gemini.api.url}")
     private String geminiApiUrl;
 
-    public AiService(WebClient.Builder webClientBuilder) {
+    // Defaults to the streamGenerateContent variant of gemini.api.url
+    @Value("${gemini.api.stream-url:}")
+    private String geminiStreamUrl;
+
+    // Successful Gemini answers keyed by a hash of the normalised prompt and language; failures are never cached
+    private final Cache<String, String> responseCache;
+    private final Timer cachedTimer;
+    private final Timer geminiTimer;
+    private final Timer firstChunkTimer;
+    // Gemini calls currently running for a cache key; concurrent callers share them
+    private final Map<String, Mono<String>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalescedCounter;
+    private final GeminiResilience geminiResilience;
+
+    /**
+     * Ends a streamed answer that failed; the message is the fallback answer to show instead.
+     */
+    public static class AiUnavailableException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public AiUnavailableException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    public AiService(WebClient.Builder webClientBuilder, MeterRegistry meterRegistry, GeminiResilience geminiResilience,
+                     @Value("${ai.cache.max-weight-bytes:16777216}") long maxWeightBytes,
+                     @Value("${ai.cache.max-entries:10000}") long maxEntries,
+                     @Value("${ai.cache.ttl:1h}") Duration ttl) {
         this.webClient = webClientBuilder.build();
+        this.geminiResilience = geminiResilience;
+        // Entries weigh their approximate UTF-16 size, but at least an equal share of the budget,
+        // which caps the cache at both max-weight-bytes and max-entries
+        int minimumEntryWeight = (int) Math.min(Integer.MAX_VALUE, maxWeightBytes / Math.max(1, maxEntries));
+        this.responseCache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((String key, String value) -> Math.max(2 * (key.length() + value.length()), minimumEntryWeight))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responseCache, "ai.responses");
+        this.cachedTimer = Timer.builder("ai.query").tag("source", "cache").register(meterRegistry);
+        this.geminiTimer = Timer.builder("ai.query").tag("source", "gemini").register(meterRegistry);
+        this.firstChunkTimer = Timer.builder("ai.stream.first_chunk")
+                .description("Time from sending a streaming request to Gemini until its first text chunk").register(meterRegistry);
+        this.coalescedCounter = Counter.builder("ai.requests.coalesced")
+                .description("AI requests that joined an identical call already in flight").register(meterRegistry);
+        Gauge.builder("ai.requests.in_flight", inFlight, Map::size).register(meterRegistry);
     }
 
     public Mono<String> queryAI(String userMessage, String language) {
+        return queryAI(userMessage, language, true);
+    }
+
+    /**
+     * Sends a prompt to Gemini. Identical prompts (ignoring case and whitespace) in the same
+     * language are answered from the response cache, and while one is being fetched any
+     * identical request waits for that call instead of starting its own. Pass
+     * {@code cacheable = false} for personalised prompts whose answers must not be retained; such
+     * prompts still join an identical call in flight, but the answer never enters the cache.
+     */
+    public Mono<String> queryAI(String userMessage, String language, boolean cacheable) {
         String promptWithLanguage = "Please respond in " + language + ". " + userMessage;
-        GeminiRequest requestBody = new GeminiRequest(promptWithLanguage);
+        String key = cacheKey(userMessage, language);
+        if (!cacheable) {
+            return Mono.defer(() -> withFallbacks(sharedCall(UNCACHED_KEY_PREFIX + key, promptWithLanguage, false)));
+        }
+
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            String cached = responseCache.getIfPresent(key);
+            if (cached != null) {
+                cachedTimer.record(Duration.ofNanos(System.nanoTime() - start));
+                return Mono.just(cached);
+            }
+            return withFallbacks(sharedCall(key, promptWithLanguage, true));
+        });
+    }
+
+    /**
+     * Streams Gemini's answer as text chunks as they are generated. A cached answer is emitted
+     * as a single chunk; a completed cacheable stream is stored whole so that later
+     * {@link #queryAI} calls can reuse it. A failure, before or after the first chunk, ends the
+     * stream with an {@link AiUnavailableException} carrying the fallback answer, so a client can
+     * tell a cut-off answer from a complete one.
+     */
+    public Flux<String> streamAI(String userMessage, String language, boolean cacheable) {
+        String promptWithLanguage = "Please respond in " + language + ". " + userMessage;
+        String key = cacheable ? cacheKey(userMessage, language) : null;
+        return Flux.defer(() -> {
+            if (key != null) {
+                String cached = responseCache.getIfPresent(key);
+                if (cached != null) {
+                    return Flux.just(cached);
+                }
+            }
+            StringBuilder answer = new StringBuilder();
+            Flux<String> chunks = geminiResilience.protect(callGeminiStream(promptWithLanguage))
+                    .doOnNext(answer::append);
+            if (key != null) {
+                chunks = chunks.doOnComplete(() -> {
+                    if (answer.length() > 0) {
+                        responseCache.put(key, answer.toString());
+                    }
+                });
+            }
+            return chunks
+                    .switchIfEmpty(Flux.just(NO_RESPONSE))
+                    .onErrorMap(Exception.class, ex -> new AiUnavailableException(fallback(ex), ex));
+        });
+    }
+
+    /**
+     * Joins the in-flight call for {@code key}, or starts one. Every subscriber sees the same
+     * value or error; the upstream call is cancelled only once all subscribers have cancelled.
+     * The entry is removed as soon as the call terminates, so results outlive it only in the
+     * cache, and only when {@code cache} is set.
+     */
+    private Mono<String> sharedCall(String key, String prompt, boolean cache) {
+        boolean[] started = {false};
+        Mono<String> call = inFlight.computeIfAbsent(key, k -> {
+            started[0] = true;
+            AtomicReference<Mono<String>> self = new AtomicReference<>();
+            Mono<String> response = timed(callGemini(prompt));
+            if (cache) {
+                response = response.doOnNext(answer -> responseCache.put(k, answer));
+            }
+            Mono<String> shared = response
+                    .doFinally(signal -> inFlight.remove(k, self.get()))
+                    .flux()
+                    .share()
+                    .next();
+            self.set(shared);
+            return shared;
+        });
+        if (!started[0]) {
+            coalescedCounter.increment();
+        }
+        return call;
+    }
+
+    // Emits the answer text, completes empty when Gemini returned no candidates, and errors on failure
+    private Mono<String> callGemini(String prompt) {
+        GeminiRequest requestBody = new GeminiRequest(prompt);
 
         return webClient.post()
                 .uri(geminiApiUrl)
@@ -44,26 +211,114 @@ public class AiService {
                 .bodyValue(requestBody)
                 .retrieve()
                 .bodyToMono(GeminiResponse.class)
-                .map(response -> {
+                .flatMap(response -> {
                     logger.debug("Gemini API response: {}", response);
-                    return Optional.ofNullable(response.getCandidates())
+                    return Mono.justOrEmpty(Optional.ofNullable(response.getCandidates())
                             .flatMap(candidates -> candidates.stream().findFirst())
                             .map(GeminiResponse.Candidate::getContent)
                             .map(GeminiResponse.Content::getParts)
                             .flatMap(parts -> parts.stream().findFirst())
-                            .map(GeminiResponse.Part::getText)
-                            .orElse("Sorry, I couldn't process your request.");
-                })
-                .onErrorResume(WebClientResponseException.class, ex -> {
-                    logger.error("Error from Gemini API. Status: {}, Body: {}", ex.getStatusCode(), ex.getResponseBodyAsString());
-                    if (ex.getStatusCode().value() == 429) {
-                        return Mono.just("AI service is currently rate limited. Please try again later.");
-                    }
-                    return Mono.just("Sorry, there was an error communicating with the AI service. Status: " + ex.getStatusCode());
-                })
-                .onErrorResume(Exception.class, ex -> {
-                    logger.error("An unexpected error occurred while calling Gemini API: {}", ex.getMessage());
-                    return Mono.just("Sorry, an unexpected error occurred.");
+                            .map(GeminiResponse.Part::getText));
                 });
     }
+
+    // Emits each non-empty text part of Gemini's server-sent events as it arrives
+    private Flux<String> callGeminiStream(String prompt) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            boolean[] first = {true};
+            return webClient.post()
+                    .uri(streamUrl())
+                    .header("x-goog-api-key", geminiApiKey)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.TEXT_EVENT_STREAM)
+                    .bodyValue(new GeminiRequest(prompt))
+                    .retrieve()
+                    .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<GeminiResponse>>() {})
+                    .mapNotNull(ServerSentEvent::data)
+                    .concatMapIterable(response -> Optional.ofNullable(response.getCandidates())
+                            .flatMap(candidates -> candidates.stream().findFirst())
+                            .map(GeminiResponse.Candidate::getContent)
+                            .map(GeminiResponse.Content::getParts)
+                            .map(parts -> parts.stream()
+                                    .map(GeminiResponse.Part::getText)
+                                    .filter(text -> text != null && !text.isEmpty())
+                                    .toList())
+                            .orElse(List.of()))
+                    .doOnNext(text -> {
+                        if (first[0]) {
+                            first[0] = false;
+                            firstChunkTimer.record(Duration.ofNanos(System.nanoTime() - start));
+                        }
+                    });
+        });
+    }
+
+    private String streamUrl() {
+        if (geminiStreamUrl != null && !geminiStreamUrl.isBlank()) {
+            return geminiStreamUrl;
+        }
+        String base = geminiApiUrl.replace(":generateContent", ":streamGenerateContent");
+        return base + (base.contains("?") ? "&" : "?") + "alt=sse";
+    }
+
+    // Every upstream call, shared or not, is timed and goes through the resilience layer
+    private Mono<String> timed(Mono<String> call) {
+        return geminiResilience.protect(Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.doFinally(signal -> geminiTimer.record(Duration.ofNanos(System.nanoTime() - start)));
+        }));
+    }
+
+    private Mono<String> withFallbacks(Mono<String> call) {
+        return call
+                .defaultIfEmpty(NO_RESPONSE)
+                .onErrorResume(Exception.class, ex -> Mono.just(fallback(ex)));
+    }
+
+    private String fallback(Throwable ex) {
+        // Fast fallbacks when the resilience layer refuses or abandons the call
+        if (ex instanceof CallNotPermittedException) {
+            logger.warn("Gemini circuit breaker is open, not calling the AI");
+            return UNAVAILABLE;
+        }
+        if (ex instanceof RequestNotPermitted) {
+            logger.warn("Gemini rate limit reached locally");
+            return RATE_LIMITED;
+        }
+        if (ex instanceof BulkheadFullException) {
+            logger.warn("Too many concurrent Gemini calls");
+            return UNAVAILABLE;
+        }
+        if (ex instanceof TimeoutException) {
+            logger.error("Gemini call timed out");
+            return UNAVAILABLE;
+        }
+        if (ex instanceof WebClientResponseException response) {
+            logger.error("Error from Gemini API. Status: {}, Body: {}", response.getStatusCode(), response.getResponseBodyAsString());
+            if (response.getStatusCode().value() == 429) {
+                return RATE_LIMITED;
+            }
+            return "Sorry, there was an error communicating with the AI service. Status: " + response.getStatusCode();
+        }
+        logger.error("An unexpected error occurred while calling Gemini API: {}", ex.getMessage());
+        return "Sorry, an unexpected error occurred.";
+    }
+
+    private static String cacheKey(String userMessage, String language) {
+        String normalized = normalize(language) + '\u0000' + normalize(userMessage);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
 }
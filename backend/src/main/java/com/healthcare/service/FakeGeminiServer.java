@@ -0,0 +1,210 @@
+package com.healthcare.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+/**
+ * A stand-in for the Gemini API so AI-backed paths can be load-tested offline. Run with the
+ * {@code fake-gemini} profile, which points {@code gemini.api.url} at this server. It answers
+ * {@code :generateContent} and {@code :streamGenerateContent?alt=sse} with canned payloads
+ * chosen by prompt (medicine scan, report analysis or chat) after a simulated latency, and
+ * fails a configurable share of calls with 500 or 429. A share of streams can also be cut off
+ * halfway to simulate a dropped connection. Latency, errors and chunking are drawn
+ * from a seeded random source, so a single-threaded run replays the same sequence.
+ */
+@Component
+@Profile("fake-gemini")
+public class FakeGeminiServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(FakeGeminiServer.class);
+
+    private static final String MEDICINE_ANSWER = "{\"brandName\": \"Dolo 650\", \"generic\": \"Paracetamol\", \"category\": \"Analgesic\", "
+            + "\"uses\": [\"Fever\", \"Mild to moderate pain\"], \"dosage\": \"One tablet every 6 hours, at most 4 a day\", "
+            + "\"foodInstructions\": \"Can be taken with or without food\", "
+            + "\"sideEffects\": {\"common\": [\"Nausea\"], \"serious\": [\"Liver damage on overdose\"]}, "
+            + "\"warnings\": [\"Avoid alcohol\", \"Do not combine with other paracetamol products\"], \"isCritical\": false}";
+
+    private static final String REPORT_ANSWER = "{\"summary\": \"Haemoglobin is slightly low; other values are within range.\", \"testResults\": ["
+            + "{\"testName\": \"Hemoglobin\", \"value\": \"11.8\", \"unit\": \"g/dL\", \"referenceRange\": \"12.0-15.5\", \"status\": \"low\"}, "
+            + "{\"testName\": \"WBC\", \"value\": \"7200\", \"unit\": \"/uL\", \"referenceRange\": \"4000-11000\", \"status\": \"normal\"}, "
+            + "{\"testName\": \"Platelets\", \"value\": \"250000\", \"unit\": \"/uL\", \"referenceRange\": \"150000-450000\", \"status\": \"normal\"}]}";
+
+    private static final String CHAT_ANSWER = "This is a simulated answer from the local Gemini stand-in. "
+            + "Drink plenty of fluids, rest, and consult a doctor if the symptoms last more than three days or get worse.";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${fake-gemini.port:8089}")
+    private int port;
+
+    // fixed, uniform (0..max) or lognormal (median, sigma, capped at max)
+    @Value("${fake-gemini.latency.distribution:lognormal}")
+    private String latencyDistribution;
+
+    @Value("${fake-gemini.latency.median:800ms}")
+    private Duration latencyMedian;
+
+    @Value("${fake-gemini.latency.sigma:0.5}")
+    private double latencySigma;
+
+    @Value("${fake-gemini.latency.max:10s}")
+    private Duration latencyMax;
+
+    @Value("${fake-gemini.error-rate:0.0}")
+    private double errorRate;
+
+    @Value("${fake-gemini.throttle-rate:0.0}")
+    private double throttleRate;
+
+    @Value("${fake-gemini.stream.chunks:8}")
+    private int streamChunks;
+
+    @Value("${fake-gemini.stream.chunk-delay:50ms}")
+    private Duration chunkDelay;
+
+    // Share of successful streams that are cut off after half their chunks
+    @Value("${fake-gemini.stream.drop-rate:0.0}")
+    private double dropRate;
+
+    @Value("${fake-gemini.seed:42}")
+    private long seed;
+
+    private Random random;
+    private DisposableServer server;
+
+    @PostConstruct
+    public void start() {
+        random = new Random(seed);
+        server = HttpServer.create()
+                .port(port)
+                .route(routes -> routes.post("/**", this::handle))
+                .bindNow();
+        logger.info("Fake Gemini server listening on port {} (latency {} median {}, error rate {}, throttle rate {})",
+                server.port(), latencyDistribution, latencyMedian, errorRate, throttleRate);
+    }
+
+    // The bound port, which differs from fake-gemini.port when that is 0
+    public int port() {
+        return server.port();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    private Mono<Void> handle(HttpServerRequest request, HttpServerResponse response) {
+        boolean streaming = request.uri().contains(":streamGenerateContent");
+        Outcome outcome = nextOutcome();
+        return request.receive().aggregate().asString(StandardCharsets.UTF_8).defaultIfEmpty("")
+                .delayElement(outcome.latency())
+                .flatMap(body -> {
+                    if (outcome.status() != HttpResponseStatus.OK) {
+                        return response.status(outcome.status())
+                                .header("Content-Type", "application/json")
+                                .sendString(Mono.just("{\"error\": {\"code\": " + outcome.status().code()
+                                        + ", \"message\": \"Simulated failure\"}}"))
+                                .then();
+                    }
+                    String answer = cannedAnswer(promptOf(body));
+                    if (!streaming) {
+                        return response.header("Content-Type", "application/json")
+                                .sendString(Mono.just(responseJson(answer)))
+                                .then();
+                    }
+                    List<String> chunks = split(answer, streamChunks);
+                    Flux<String> events = Flux.fromIterable(outcome.dropped() ? chunks.subList(0, chunks.size() / 2) : chunks)
+                            .delayElements(chunkDelay)
+                            .map(chunk -> "data: " + responseJson(chunk) + "\r\n\r\n");
+                    if (outcome.dropped()) {
+                        // Failing the body aborts the response without the closing chunk
+                        events = events.concatWith(Mono.error(new IllegalStateException("Simulated dropped stream")));
+                    }
+                    return response.header("Content-Type", "text/event-stream")
+                            .sendString(events)
+                            .then();
+                });
+    }
+
+    private synchronized Outcome nextOutcome() {
+        double roll = random.nextDouble();
+        HttpResponseStatus status = roll < errorRate ? HttpResponseStatus.INTERNAL_SERVER_ERROR
+                : roll < errorRate + throttleRate ? HttpResponseStatus.TOO_MANY_REQUESTS
+                : HttpResponseStatus.OK;
+        long maxMillis = latencyMax.toMillis();
+        long millis = switch (latencyDistribution.toLowerCase(Locale.ROOT)) {
+            case "fixed" -> latencyMedian.toMillis();
+            case "uniform" -> (long) (random.nextDouble() * maxMillis);
+            default -> (long) (latencyMedian.toMillis() * Math.exp(latencySigma * random.nextGaussian()));
+        };
+        // Only rolled when enabled, so runs without drops replay the same sequence as before
+        boolean dropped = dropRate > 0 && random.nextDouble() < dropRate;
+        return new Outcome(status, Duration.ofMillis(Math.max(0, Math.min(millis, maxMillis))), dropped);
+    }
+
+    private record Outcome(HttpResponseStatus status, Duration latency, boolean dropped) {}
+
+    private String promptOf(String body) {
+        try {
+            JsonNode text = objectMapper.readTree(body).path("contents").path(0).path("parts").path(0).path("text");
+            return text.asText("");
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
+    // Matches the prompts built by MedicineScanService and MedicalReportService
+    private static String cannedAnswer(String prompt) {
+        if (prompt.contains("medicine information")) {
+            return "```json\n" + MEDICINE_ANSWER + "\n```";
+        }
+        if (prompt.contains("medical report")) {
+            return REPORT_ANSWER;
+        }
+        return CHAT_ANSWER;
+    }
+
+    private String responseJson(String text) {
+        ObjectNode root = objectMapper.createObjectNode();
+        ObjectNode candidate = root.putArray("candidates").addObject();
+        ObjectNode content = candidate.putObject("content");
+        content.put("role", "model");
+        content.putArray("parts").addObject().put("text", text);
+        return root.toString();
+    }
+
+    private static List<String> split(String text, int chunks) {
+        int size = Math.max(1, (text.length() + chunks - 1) / Math.max(1, chunks));
+        List<String> parts = new ArrayList<>();
+        for (int i = 0; i < text.length(); i += size) {
+            parts.add(text.substring(i, Math.min(text.length(), i + size)));
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,185 @@
+package com.healthcare.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.UUID;
+
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Persists uploaded files to local storage without buffering them in memory.
+ * The multipart temp file is moved (or streamed) straight to its destination,
+ * so later stages such as OCR and PDF extraction read from that single copy.
+ */
+@Service
+public class FileStorageService {
+
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * A file stored under its content hash.
+     *
+     * @param path        the stored file
+     * @param contentHash hex-encoded SHA-256 of the file bytes
+     * @param duplicate   whether identical bytes were already stored
+     */
+    public record StoredFile(Path path, String contentHash, boolean duplicate) {}
+
+    /**
+     * Streams the upload to {@code directory/fileName}, creating the directory if needed.
+     *
+     * @return the path of the stored file
+     */
+    public Path store(MultipartFile file, Path directory, String fileName) throws IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve(fileName).toAbsolutePath();
+        // For an absolute File target the servlet container renames its temp file into
+        // place when it can, and otherwise streams it, so the upload is never held on the heap.
+        file.transferTo(target.toFile());
+        return target;
+    }
+
+    /**
+     * Streams the upload into {@code directory} under the name {@code <sha256><extension>},
+     * hashing it on the way. If a file with the same content already exists the new copy
+     * is discarded and the existing one is returned.
+     */
+    public StoredFile storeContentAddressed(MultipartFile file, Path directory) throws IOException {
+        try (InputStream inputStream = file.getInputStream()) {
+            return storeContentAddressed(inputStream, directory, extensionOf(file.getOriginalFilename()));
+        }
+    }
+
+    public StoredFile storeContentAddressed(InputStream inputStream, Path directory, String extension) throws IOException {
+        Files.createDirectories(directory);
+        MessageDigest digest = sha256();
+        Path tempFile = Files.createTempFile(directory, "upload-", ".part");
+        try {
+            try (DigestInputStream digestStream = new DigestInputStream(inputStream, digest)) {
+                Files.copy(digestStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+            Path target = directory.resolve(contentHash + extension).toAbsolutePath();
+            if (Files.exists(target)) {
+                return new StoredFile(target, contentHash, true);
+            }
+            try {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // A concurrent upload of the same bytes won the race
+                return new StoredFile(target, contentHash, true);
+            }
+            return new StoredFile(target, contentHash, false);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Moves a file that is already on disk into {@code directory} under its content hash.
+     * The file is hashed by reading it once; its bytes are not copied.
+     */
+    public StoredFile storeContentAddressed(Path existingFile, Path directory, String extension) throws IOException {
+        Files.createDirectories(directory);
+        String contentHash = contentHash(existingFile);
+        Path target = directory.resolve(contentHash + extension).toAbsolutePath();
+        if (Files.exists(target)) {
+            Files.delete(existingFile);
+            return new StoredFile(target, contentHash, true);
+        }
+        Files.move(existingFile, target, StandardCopyOption.ATOMIC_MOVE);
+        return new StoredFile(target, contentHash, false);
+    }
+
+    /**
+     * Streams the upload into {@code directory} like {@link #storeContentAddressed}, but under a
+     * name unique to this call ({@code <sha256>-<random><extension>}), so the caller owns the
+     * file and may delete it without affecting concurrent uploads of the same bytes. Use this
+     * when the durable copy is kept elsewhere and the local file is only a working copy.
+     */
+    public StoredFile storeWorkingCopy(InputStream inputStream, Path directory, String extension) throws IOException {
+        Files.createDirectories(directory);
+        MessageDigest digest = sha256();
+        Path tempFile = Files.createTempFile(directory, "upload-", ".part");
+        try {
+            try (DigestInputStream digestStream = new DigestInputStream(inputStream, digest)) {
+                Files.copy(digestStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+            Path target = directory.resolve(contentHash + "-" + UUID.randomUUID() + extension).toAbsolutePath();
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+            return new StoredFile(target, contentHash, false);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Moves a file that is already on disk into {@code directory} as a working copy owned by
+     * the caller; see {@link #storeWorkingCopy(InputStream, Path, String)}.
+     */
+    public StoredFile storeWorkingCopy(Path existingFile, Path directory, String extension) throws IOException {
+        Files.createDirectories(directory);
+        String contentHash = contentHash(existingFile);
+        Path target = directory.resolve(contentHash + "-" + UUID.randomUUID() + extension).toAbsolutePath();
+        Files.move(existingFile, target, StandardCopyOption.ATOMIC_MOVE);
+        return new StoredFile(target, contentHash, false);
+    }
+
+    /**
+     * Returns the hex-encoded SHA-256 of a file on disk.
+     */
+    public String contentHash(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Strips path components from a client-supplied file name.
+     */
+    public static String sanitizeFileName(String originalFilename) {
+        if (originalFilename == null || originalFilename.isBlank()) {
+            return "upload";
+        }
+        String name = Path.of(originalFilename).getFileName().toString();
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    /**
+     * Returns the lower-cased extension of a file name including the dot, or an empty string.
+     */
+    public static String extensionOf(String fileName) {
+        String name = sanitizeFileName(fileName);
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 ? name.substring(dot).toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
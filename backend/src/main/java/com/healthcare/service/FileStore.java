@@ -0,0 +1,39 @@
+package com.healthcare.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Durable storage for uploaded report and scan files, grouped into buckets
+ * such as {@code reports} and {@code medicine_images}.
+ */
+public interface FileStore {
+
+    String REPORTS_BUCKET = "reports";
+    String MEDICINE_IMAGES_BUCKET = "medicine_images";
+    String MEDICINE_IMAGES_COLD_BUCKET = "medicine_images_cold";
+
+    /**
+     * A stored file ready to be streamed back to a client.
+     */
+    record StoredResource(Resource resource, String contentType) {}
+
+    /**
+     * Persists a local working file under {@code bucket/name}. Saving a name that
+     * already exists in the bucket keeps the existing copy.
+     *
+     * @return the URL the file can be fetched from
+     */
+    String save(Path localFile, String bucket, String name, String contentType) throws IOException;
+
+    Optional<StoredResource> open(String bucket, String name) throws IOException;
+
+    /**
+     * Whether {@link #save} leaves the file on local disk. When it does not,
+     * callers may delete their working copy once processing is finished.
+     */
+    boolean retainsLocalFile();
+}
@@ -0,0 +1,120 @@
+package com.healthcare.service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedRateLimiterMetrics;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.ratelimiter.operator.RateLimiterOperator;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Guards calls to Gemini so a slow or failing upstream cannot tie up the scan, report and
+ * chat endpoints. From the outside in, each call passes a circuit breaker, a token-bucket
+ * rate limiter sized to the API quota, a concurrency bulkhead and a per-call timeout.
+ * Rejections fail fast with Resilience4j's exceptions, which {@link AiService} turns into
+ * fallback answers. Metrics are published under {@code resilience4j.*} with name {@code gemini}.
+ */
+@Component
+public class GeminiResilience {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeminiResilience.class);
+
+    private static final String NAME = "gemini";
+
+    private final CircuitBreaker circuitBreaker;
+    private final RateLimiter rateLimiter;
+    private final Bulkhead bulkhead;
+    private final Duration callTimeout;
+
+    public GeminiResilience(MeterRegistry meterRegistry,
+                            @Value("${ai.resilience.rate-limit.requests-per-period:60}") int requestsPerPeriod,
+                            @Value("${ai.resilience.rate-limit.period:1m}") Duration ratePeriod,
+                            @Value("${ai.resilience.rate-limit.max-wait:500ms}") Duration rateMaxWait,
+                            @Value("${ai.resilience.bulkhead.max-concurrent:20}") int maxConcurrent,
+                            @Value("${ai.resilience.bulkhead.max-wait:0ms}") Duration bulkheadMaxWait,
+                            @Value("${ai.resilience.timeout:20s}") Duration callTimeout,
+                            @Value("${ai.resilience.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+                            @Value("${ai.resilience.circuit-breaker.slow-call-duration:10s}") Duration slowCallDuration,
+                            @Value("${ai.resilience.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+                            @Value("${ai.resilience.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                            @Value("${ai.resilience.circuit-breaker.open-duration:30s}") Duration openDuration) {
+        this.callTimeout = callTimeout;
+
+        CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(slowCallDuration)
+                .slowCallRateThreshold(80)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .waitDurationInOpenState(openDuration)
+                .permittedNumberOfCallsInHalfOpenState(3)
+                .recordException(GeminiResilience::isUpstreamFailure)
+                .build());
+        RateLimiterRegistry rateLimiters = RateLimiterRegistry.of(RateLimiterConfig.custom()
+                .limitForPeriod(requestsPerPeriod)
+                .limitRefreshPeriod(ratePeriod)
+                .timeoutDuration(rateMaxWait)
+                .build());
+        BulkheadRegistry bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrent)
+                .maxWaitDuration(bulkheadMaxWait)
+                .build());
+
+        this.circuitBreaker = circuitBreakers.circuitBreaker(NAME);
+        this.rateLimiter = rateLimiters.rateLimiter(NAME);
+        this.bulkhead = bulkheads.bulkhead(NAME);
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+                logger.warn("Gemini circuit breaker {}", event.getStateTransition()));
+
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+        TaggedRateLimiterMetrics.ofRateLimiterRegistry(rateLimiters).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+    }
+
+    public <T> Mono<T> protect(Mono<T> call) {
+        return call
+                .timeout(callTimeout)
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(RateLimiterOperator.of(rateLimiter))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+    }
+
+    // For streams the timeout bounds the wait for each chunk rather than the whole answer
+    public <T> Flux<T> protect(Flux<T> stream) {
+        return stream
+                .timeout(callTimeout)
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(RateLimiterOperator.of(rateLimiter))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+    }
+
+    // Client errors other than 429 are our fault, not Gemini's, and must not open the breaker
+    private static boolean isUpstreamFailure(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
+        }
+        return error instanceof TimeoutException || error instanceof WebClientRequestException;
+    }
+}
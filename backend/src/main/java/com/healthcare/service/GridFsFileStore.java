@@ -0,0 +1,62 @@
+package com.healthcare.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsResource;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.stereotype.Service;
+
+import com.mongodb.client.gridfs.model.GridFSFile;
+
+/**
+ * Stores files in MongoDB GridFS so that every node can serve every file.
+ * Files are served by {@code FileController}, which supports HTTP range requests.
+ */
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "gridfs")
+public class GridFsFileStore implements FileStore {
+
+    private final GridFsTemplate gridFsTemplate;
+
+    public GridFsFileStore(GridFsTemplate gridFsTemplate) {
+        this.gridFsTemplate = gridFsTemplate;
+    }
+
+    @Override
+    public String save(Path localFile, String bucket, String name, String contentType) throws IOException {
+        if (find(bucket, name) == null) {
+            Document metadata = new Document("bucket", bucket);
+            try (InputStream inputStream = Files.newInputStream(localFile)) {
+                gridFsTemplate.store(inputStream, name, contentType, metadata);
+            }
+        }
+        return "/api/files/" + bucket + "/" + name;
+    }
+
+    @Override
+    public Optional<StoredResource> open(String bucket, String name) {
+        GridFSFile file = find(bucket, name);
+        if (file == null) {
+            return Optional.empty();
+        }
+        GridFsResource resource = gridFsTemplate.getResource(file);
+        return Optional.of(new StoredResource(resource, resource.getContentType()));
+    }
+
+    @Override
+    public boolean retainsLocalFile() {
+        return false;
+    }
+
+    private GridFSFile find(String bucket, String name) {
+        return gridFsTemplate.findOne(new Query(Criteria.where("filename").is(name).and("metadata.bucket").is(bucket)));
+    }
+}
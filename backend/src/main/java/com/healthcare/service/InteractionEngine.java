@@ -0,0 +1,269 @@
+package com.healthcare.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.model.Medicine;
+import com.healthcare.model.User;
+import com.healthcare.repository.MedicineRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Checks a medicine against a patient's allergies and current medications.
+ * <p>
+ * The verified catalogue is compiled once per refresh: medicine JSON fields are parsed into
+ * ingredient sets and warning sentences, all brand and ingredient names go into one
+ * Aho-Corasick automaton, and every warning that names another ingredient becomes an edge in
+ * an ingredient interaction graph. A check then only scans the patient's short free-text
+ * fields with the automaton and probes the graph.
+ */
+@Service
+public class InteractionEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(InteractionEngine.class);
+
+    public static final String ALLERGY = "ALLERGY";
+    public static final String INTERACTION = "INTERACTION";
+    public static final String DUPLICATE_THERAPY = "DUPLICATE_THERAPY";
+
+    // Free-text answers that mean "nothing to report"
+    private static final Set<String> EMPTY_ANSWERS = Set.of("none", "nil", "na", "n a", "no", "nka", "nkda", "no known allergies", "not known");
+
+    public record Alert(String type, String term, String detail) {}
+
+    public record CheckResult(String medicine, List<Alert> alerts) {}
+
+    /**
+     * A medicine reduced to what the check needs.
+     *
+     * @param ingredients  normalised ingredient names
+     * @param warningText  normalised warning text, padded with spaces for whole-word lookups
+     * @param mentions     other ingredients named in this medicine's warnings, with the sentence naming them
+     */
+    public record MedicineProfile(String name, Set<String> ingredients, String warningText, Map<String, String> mentions) {}
+
+    private record Snapshot(AhoCorasickMatcher<Set<String>> drugTerms, Map<String, MedicineProfile> profiles,
+                            Map<String, Map<String, String>> interactions) {
+
+        static final Snapshot EMPTY = new Snapshot(AhoCorasickMatcher.build(Map.of()), Map.of(), Map.of());
+    }
+
+    private final MedicineRepository medicineRepository;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Timer checkTimer;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public InteractionEngine(MedicineRepository medicineRepository, MeterRegistry meterRegistry) {
+        this.medicineRepository = medicineRepository;
+        this.checkTimer = Timer.builder("interaction.check").description("Time spent checking a medicine against a patient").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${interaction.refresh-interval-ms:300000}", fixedDelayString = "${interaction.refresh-interval-ms:300000}")
+    public void refresh() {
+        try {
+            List<Medicine> medicines = medicineRepository.findByVerifiedTrue();
+            snapshot = compile(medicines);
+            logger.info("Compiled interaction data for {} medicines ({} interacting ingredients)",
+                    medicines.size(), snapshot.interactions().size());
+        } catch (RuntimeException e) {
+            logger.warn("Could not compile interaction data: {}", e.getMessage());
+        }
+    }
+
+    public Optional<MedicineProfile> profileOf(String medicineId) {
+        return Optional.ofNullable(snapshot.profiles().get(medicineId));
+    }
+
+    /**
+     * Builds a profile for a medicine that is not in the catalogue, such as an unverified
+     * scan result. {@code warnings} may be a JSON array or plain text.
+     */
+    public MedicineProfile profileOf(String brandName, String generic, String warnings) {
+        Snapshot current = snapshot;
+        Set<String> ingredients = new LinkedHashSet<>(ingredientsOf(generic));
+        // A known brand name contributes the ingredients the catalogue lists for it
+        for (AhoCorasickMatcher.Match<Set<String>> match : current.drugTerms().findAll(AhoCorasickMatcher.normalize(brandName))) {
+            ingredients.addAll(match.value());
+        }
+        return profile(current.drugTerms(), brandName != null ? brandName : generic, ingredients, warningSentences(warnings));
+    }
+
+    public CheckResult check(User patient, MedicineProfile medicine) {
+        long start = System.nanoTime();
+        Snapshot current = snapshot;
+        Map<String, Alert> alerts = new LinkedHashMap<>();
+
+        // Allergies: known allergen names against the ingredients, any free-text allergen against the warnings
+        String allergyText = AhoCorasickMatcher.normalize(patient.getAllergies());
+        for (AhoCorasickMatcher.Match<Set<String>> match : current.drugTerms().findAll(allergyText)) {
+            for (String allergen : match.value()) {
+                if (medicine.ingredients().contains(allergen)) {
+                    alerts.putIfAbsent(ALLERGY + allergen, new Alert(ALLERGY, match.pattern(), "Contains " + allergen));
+                }
+            }
+        }
+        for (String allergen : phrases(patient.getAllergies())) {
+            if (medicine.ingredients().contains(allergen)) {
+                alerts.putIfAbsent(ALLERGY + allergen, new Alert(ALLERGY, allergen, "Contains " + allergen));
+            } else if (medicine.warningText().contains(" " + allergen + " ")) {
+                alerts.putIfAbsent(ALLERGY + allergen, new Alert(ALLERGY, allergen, "Mentioned in the warnings"));
+            }
+        }
+
+        // Current medications: same ingredient twice, or an edge in the interaction graph
+        String medicationText = AhoCorasickMatcher.normalize(patient.getCurrentMedications());
+        for (AhoCorasickMatcher.Match<Set<String>> match : current.drugTerms().findAll(medicationText)) {
+            for (String taken : match.value()) {
+                if (medicine.ingredients().contains(taken)) {
+                    alerts.putIfAbsent(DUPLICATE_THERAPY + taken, new Alert(DUPLICATE_THERAPY, match.pattern(), "Already taking " + taken));
+                    continue;
+                }
+                String reason = medicine.mentions().get(taken);
+                for (String ingredient : medicine.ingredients()) {
+                    if (reason != null) {
+                        break;
+                    }
+                    reason = current.interactions().getOrDefault(ingredient, Map.of()).get(taken);
+                }
+                if (reason != null) {
+                    alerts.putIfAbsent(INTERACTION + taken, new Alert(INTERACTION, match.pattern(), reason));
+                }
+            }
+        }
+
+        checkTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new CheckResult(medicine.name(), new ArrayList<>(alerts.values()));
+    }
+
+    private Snapshot compile(List<Medicine> medicines) {
+        // Every brand and ingredient name maps to the ingredients it stands for
+        Map<String, Set<String>> terms = new HashMap<>();
+        List<Set<String>> ingredientSets = new ArrayList<>(medicines.size());
+        for (Medicine medicine : medicines) {
+            Set<String> ingredients = ingredientsOf(medicine.getGeneric());
+            ingredientSets.add(ingredients);
+            for (String ingredient : ingredients) {
+                terms.computeIfAbsent(ingredient, key -> new LinkedHashSet<>()).add(ingredient);
+            }
+            String brand = AhoCorasickMatcher.normalize(medicine.getBrandName());
+            if (!brand.isEmpty() && !ingredients.isEmpty()) {
+                terms.computeIfAbsent(brand, key -> new LinkedHashSet<>()).addAll(ingredients);
+            }
+        }
+        AhoCorasickMatcher<Set<String>> drugTerms = AhoCorasickMatcher.build(terms);
+
+        Map<String, MedicineProfile> profiles = new HashMap<>();
+        Map<String, Map<String, String>> interactions = new HashMap<>();
+        for (int i = 0; i < medicines.size(); i++) {
+            Medicine medicine = medicines.get(i);
+            MedicineProfile profile = profile(drugTerms, medicine.getBrandName(), ingredientSets.get(i), warningSentences(medicine.getWarnings()));
+            profiles.put(medicine.getId(), profile);
+            // Interactions are symmetric: a warning on either drug applies to the pair
+            for (Map.Entry<String, String> mention : profile.mentions().entrySet()) {
+                for (String ingredient : profile.ingredients()) {
+                    interactions.computeIfAbsent(ingredient, key -> new HashMap<>()).putIfAbsent(mention.getKey(), mention.getValue());
+                    interactions.computeIfAbsent(mention.getKey(), key -> new HashMap<>()).putIfAbsent(ingredient, mention.getValue());
+                }
+            }
+        }
+        return new Snapshot(drugTerms, profiles, interactions);
+    }
+
+    private static MedicineProfile profile(AhoCorasickMatcher<Set<String>> drugTerms, String name, Set<String> ingredients, List<String> sentences) {
+        Map<String, String> mentions = new HashMap<>();
+        StringBuilder warningText = new StringBuilder(" ");
+        for (String sentence : sentences) {
+            String normalized = AhoCorasickMatcher.normalize(sentence);
+            warningText.append(normalized).append(' ');
+            for (AhoCorasickMatcher.Match<Set<String>> match : drugTerms.findAll(normalized)) {
+                for (String mentioned : match.value()) {
+                    if (!ingredients.contains(mentioned)) {
+                        mentions.putIfAbsent(mentioned, sentence.trim());
+                    }
+                }
+            }
+        }
+        return new MedicineProfile(name, Set.copyOf(ingredients), warningText.toString(), Map.copyOf(mentions));
+    }
+
+    // Generic names list combination products as "A + B", "A, B" or "A and B"
+    private static Set<String> ingredientsOf(String generic) {
+        Set<String> ingredients = new LinkedHashSet<>();
+        if (generic == null) {
+            return ingredients;
+        }
+        for (String part : generic.split("\\+|,|/|;|\\band\\b")) {
+            // Drop strengths such as "500mg" so the ingredient name is what gets matched
+            String ingredient = AhoCorasickMatcher.normalize(part.replaceAll("\\d+(\\.\\d+)?\\s*(mg|mcg|g|ml|iu|%)\\b", " "));
+            if (!ingredient.isEmpty()) {
+                ingredients.add(ingredient);
+            }
+        }
+        return ingredients;
+    }
+
+    // Warnings are stored as a JSON string, usually an array; plain text is accepted too
+    private List<String> warningSentences(String warnings) {
+        List<String> sentences = new ArrayList<>();
+        if (warnings == null || warnings.isBlank()) {
+            return sentences;
+        }
+        List<String> texts = new ArrayList<>();
+        try {
+            collectText(objectMapper.readTree(warnings), texts);
+        } catch (JsonProcessingException e) {
+            texts.add(warnings);
+        }
+        for (String text : texts) {
+            for (String sentence : text.split("(?<=[.;!?])\\s+")) {
+                if (!sentence.isBlank()) {
+                    sentences.add(sentence);
+                }
+            }
+        }
+        return sentences;
+    }
+
+    private static void collectText(JsonNode node, List<String> texts) {
+        if (node.isTextual()) {
+            texts.add(node.asText());
+        } else if (node.isContainerNode()) {
+            node.forEach(child -> collectText(child, texts));
+        }
+    }
+
+    private static List<String> phrases(String freeText) {
+        List<String> phrases = new ArrayList<>();
+        if (freeText == null) {
+            return phrases;
+        }
+        for (String part : freeText.split("[,;\\n/]|\\band\\b")) {
+            String phrase = AhoCorasickMatcher.normalize(part);
+            if (!phrase.isEmpty() && !EMPTY_ANSWERS.contains(phrase)) {
+                phrases.add(phrase);
+            }
+        }
+        return phrases;
+    }
+}
@@ -0,0 +1,316 @@
+package com.healthcare.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Parses reports from labs with a known, fixed layout without calling the AI. Templates are
+ * read from {@code report.templates.location} (a JSON array). A template applies when all of
+ * its {@code signatures} match the text. Rows are read only below the line matching its
+ * {@code header}, the results table heading, so patient details and letterheads above it
+ * are never taken for results. The table ends at the first line matching the optional
+ * {@code footer} or, for templates without one, at the first blank line after the rows, so
+ * page footers and sign-offs are not taken for results either; a header repeated on a later
+ * page starts another table. Rows are read either with a {@code rowPattern} regex using
+ * the named groups {@code testName}, {@code value}, {@code unit}, {@code range} and
+ * optionally {@code flag}, or with fixed-width {@code columns} giving character offsets for
+ * the same fields; column templates must have a header. The result has the same
+ * {@code summary}/{@code testResults} shape as the AI analysis.
+ * <p>
+ * The bundled templates are written from published report layouts, not checked against a
+ * corpus of real reports, and a parsed analysis is stored like an AI one. The parser is
+ * therefore off unless {@code report.templates.enabled} is set.
+ */
+@Component
+public class LabReportTemplateParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(LabReportTemplateParser.class);
+
+    private static final Pattern NUMBER = Pattern.compile("[<>]?\\s*(\\d+(?:[.,]\\d+)?)");
+    private static final Pattern RANGE = Pattern.compile("(\\d+(?:[.,]\\d+)?)\\s*(?:-|\u2013|to)\\s*(\\d+(?:[.,]\\d+)?)");
+    private static final Pattern UPPER_BOUND = Pattern.compile("(?:<|<=|\u2264|up to|upto)\\s*(\\d+(?:[.,]\\d+)?)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern LOWER_BOUND = Pattern.compile("(?:>|>=|\u2265)\\s*(\\d+(?:[.,]\\d+)?)");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ResourceLoader resourceLoader;
+    private final MeterRegistry meterRegistry;
+    private final Counter unrecognisedCounter;
+    private final Counter recognisedCounter;
+    private final Timer parseTimer;
+    private final Map<String, Counter> templateCounters = new LinkedHashMap<>();
+
+    private List<CompiledTemplate> templates = List.of();
+
+    @Value("${report.templates.location:classpath:lab-templates.json}")
+    private String templatesLocation;
+
+    @Value("${report.templates.enabled:false}")
+    private boolean enabled;
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record LabTemplate(String name, List<String> signatures, String header, String footer, String rowPattern,
+                              List<Column> columns, Integer minResults) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Column(String field, int start, int end) {}
+
+    private record CompiledTemplate(LabTemplate template, List<Pattern> signatures, Pattern header, Pattern footer, Pattern rowPattern,
+                                    int minResults) {}
+
+    public LabReportTemplateParser(ResourceLoader resourceLoader, MeterRegistry meterRegistry) {
+        this.resourceLoader = resourceLoader;
+        this.meterRegistry = meterRegistry;
+        this.recognisedCounter = Counter.builder("report.template.lookups").tag("result", "recognised")
+                .description("Report texts parsed by a lab template").register(meterRegistry);
+        this.unrecognisedCounter = Counter.builder("report.template.lookups").tag("result", "unrecognised")
+                .description("Report texts no lab template could parse, sent to the AI").register(meterRegistry);
+        this.parseTimer = Timer.builder("report.template.parse").description("Time spent trying lab templates").register(meterRegistry);
+        Gauge.builder("report.template.coverage", this, parser -> {
+            double total = parser.recognisedCounter.count() + parser.unrecognisedCounter.count();
+            return total == 0 ? 0 : parser.recognisedCounter.count() / total;
+        }).description("Share of reports parsed without the AI").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void loadTemplates() {
+        Resource resource = resourceLoader.getResource(templatesLocation);
+        if (!resource.exists()) {
+            logger.info("No lab report templates at {}", templatesLocation);
+            return;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            List<LabTemplate> loaded = objectMapper.readValue(in, new TypeReference<List<LabTemplate>>() {});
+            List<CompiledTemplate> compiled = new ArrayList<>();
+            for (LabTemplate template : loaded) {
+                if (template.rowPattern() == null && (template.columns() == null || template.columns().isEmpty())) {
+                    logger.warn("Skipping lab template {}: it has neither rowPattern nor columns", template.name());
+                    continue;
+                }
+                if (template.rowPattern() == null && template.header() == null) {
+                    logger.warn("Skipping lab template {}: column templates need a header", template.name());
+                    continue;
+                }
+                compiled.add(new CompiledTemplate(template,
+                        template.signatures() == null ? List.of()
+                                : template.signatures().stream().map(Pattern::compile).toList(),
+                        template.header() == null ? null : Pattern.compile(template.header()),
+                        template.footer() == null ? null : Pattern.compile(template.footer(), Pattern.MULTILINE),
+                        template.rowPattern() == null ? null : Pattern.compile(template.rowPattern(), Pattern.MULTILINE),
+                        template.minResults() == null ? 3 : template.minResults()));
+            }
+            templates = compiled;
+            logger.info("Loaded {} lab report templates from {}", compiled.size(), templatesLocation);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not load lab report templates from {}: {}", templatesLocation, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the structured analysis if a template recognises the text and yields at least
+     * its {@code minResults} rows, otherwise empty so the caller can fall back to the AI.
+     */
+    public Optional<String> parse(String text) {
+        if (!enabled || text == null || templates.isEmpty()) {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        try {
+            for (CompiledTemplate template : templates) {
+                if (!template.signatures().stream().allMatch(signature -> signature.matcher(text).find())) {
+                    continue;
+                }
+                Optional<String> table = tableOf(text, template.header(), template.footer());
+                if (table.isEmpty()) {
+                    continue;
+                }
+                List<ObjectNode> rows = template.rowPattern() != null
+                        ? parseRows(table.get(), template.rowPattern())
+                        : parseColumns(table.get(), template.template().columns());
+                if (rows.size() >= template.minResults()) {
+                    recognisedCounter.increment();
+                    templateCounter(template.template().name()).increment();
+                    return Optional.of(toAnalysis(template.template().name(), rows));
+                }
+                logger.debug("Lab template {} recognised the report but found only {} rows", template.template().name(), rows.size());
+            }
+            unrecognisedCounter.increment();
+            return Optional.empty();
+        } finally {
+            parseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // The lines between each line holding the header and the end of its table, or for templates
+    // without a header all of the text up to the footer
+    private static Optional<String> tableOf(String text, Pattern header, Pattern footer) {
+        if (header == null) {
+            return Optional.of(footer == null ? text : text.substring(0, footerStart(text, 0, footer)));
+        }
+        Matcher matcher = header.matcher(text);
+        StringBuilder table = new StringBuilder();
+        boolean found = false;
+        int from = 0;
+        while (from < text.length() && matcher.find(from)) {
+            found = true;
+            int lineEnd = text.indexOf('\n', matcher.end());
+            if (lineEnd < 0) {
+                break;
+            }
+            int end = footer == null ? firstBlankLineAfterRows(text, lineEnd + 1) : footerStart(text, lineEnd + 1, footer);
+            table.append(text, lineEnd + 1, end).append('\n');
+            from = end;
+        }
+        return found ? Optional.of(table.toString()) : Optional.empty();
+    }
+
+    // Start of the first line at or after from that matches the footer, or the end of the text
+    private static int footerStart(String text, int from, Pattern footer) {
+        Matcher matcher = footer.matcher(text);
+        if (!matcher.find(from)) {
+            return text.length();
+        }
+        return Math.max(from, text.lastIndexOf('\n', matcher.start() - 1) + 1);
+    }
+
+    private static int firstBlankLineAfterRows(String text, int from) {
+        boolean inRows = false;
+        int lineStart = from;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+            boolean blank = text.substring(lineStart, lineEnd).isBlank();
+            if (blank && inRows) {
+                return lineStart;
+            }
+            inRows |= !blank;
+            lineStart = lineEnd + 1;
+        }
+        return text.length();
+    }
+
+    private List<ObjectNode> parseRows(String text, Pattern rowPattern) {
+        List<ObjectNode> rows = new ArrayList<>();
+        Matcher matcher = rowPattern.matcher(text);
+        while (matcher.find()) {
+            String flag = hasGroup(rowPattern, "flag") ? matcher.group("flag") : null;
+            addRow(rows, matcher.group("testName"), matcher.group("value"),
+                    hasGroup(rowPattern, "unit") ? matcher.group("unit") : null,
+                    hasGroup(rowPattern, "range") ? matcher.group("range") : null, flag);
+        }
+        return rows;
+    }
+
+    private List<ObjectNode> parseColumns(String text, List<Column> columns) {
+        List<ObjectNode> rows = new ArrayList<>();
+        for (String line : text.split("\\R")) {
+            Map<String, String> fields = new LinkedHashMap<>();
+            for (Column column : columns) {
+                if (column.start() < line.length()) {
+                    fields.put(column.field(), line.substring(column.start(), Math.min(line.length(), column.end())).strip());
+                }
+            }
+            addRow(rows, fields.get("testName"), fields.get("value"), fields.get("unit"), fields.get("range"), fields.get("flag"));
+        }
+        return rows;
+    }
+
+    // Keeps only rows that name a test and carry a numeric value
+    private void addRow(List<ObjectNode> rows, String testName, String value, String unit, String range, String flag) {
+        if (testName == null || testName.isBlank() || value == null || !NUMBER.matcher(value).lookingAt()) {
+            return;
+        }
+        ObjectNode row = objectMapper.createObjectNode();
+        row.put("testName", testName.strip());
+        row.put("value", value.strip());
+        row.put("unit", unit == null ? "" : unit.strip());
+        row.put("referenceRange", range == null ? "" : range.strip());
+        row.put("status", status(value, range, flag));
+        rows.add(row);
+    }
+
+    private static String status(String value, String range, String flag) {
+        if (flag != null && !flag.isBlank()) {
+            char first = Character.toUpperCase(flag.strip().charAt(0));
+            if (first == 'H') {
+                return "high";
+            }
+            if (first == 'L') {
+                return "low";
+            }
+        }
+        Matcher number = NUMBER.matcher(value.strip());
+        if (range == null || !number.lookingAt()) {
+            return "";
+        }
+        double measured = toDouble(number.group(1));
+        Matcher between = RANGE.matcher(range);
+        if (between.find()) {
+            return measured < toDouble(between.group(1)) ? "low" : measured > toDouble(between.group(2)) ? "high" : "normal";
+        }
+        Matcher upper = UPPER_BOUND.matcher(range);
+        if (upper.find()) {
+            return measured > toDouble(upper.group(1)) ? "high" : "normal";
+        }
+        Matcher lower = LOWER_BOUND.matcher(range);
+        if (lower.find()) {
+            return measured < toDouble(lower.group(1)) ? "low" : "normal";
+        }
+        return "";
+    }
+
+    private static double toDouble(String number) {
+        return Double.parseDouble(number.replace(',', '.'));
+    }
+
+    private String toAnalysis(String templateName, List<ObjectNode> rows) {
+        List<String> abnormal = rows.stream()
+                .filter(row -> !row.path("status").asText().equals("normal") && !row.path("status").asText().isEmpty())
+                .map(row -> row.path("testName").asText() + " (" + row.path("status").asText() + ")")
+                .toList();
+        ObjectNode analysis = objectMapper.createObjectNode();
+        analysis.put("summary", rows.size() + " tests read from a " + templateName + " report; "
+                + (abnormal.isEmpty() ? "all values are within their reference ranges." : "outside reference range: " + String.join(", ", abnormal) + "."));
+        ArrayNode results = analysis.putArray("testResults");
+        rows.forEach(results::add);
+        analysis.put("parsedBy", "template:" + templateName);
+        return analysis.toString();
+    }
+
+    private static boolean hasGroup(Pattern pattern, String group) {
+        return pattern.pattern().contains("(?<" + group + ">");
+    }
+
+    private synchronized Counter templateCounter(String name) {
+        return templateCounters.computeIfAbsent(name, n -> Counter.builder("report.template.matches").tag("template", n)
+                .description("Reports parsed by this lab template").register(meterRegistry));
+    }
+}
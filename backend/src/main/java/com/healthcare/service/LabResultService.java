@@ -0,0 +1,113 @@
+package com.healthcare.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.model.LabResult;
+import com.healthcare.model.MedicalReport;
+import com.healthcare.repository.LabResultRepository;
+
+@Service
+public class LabResultService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LabResultService.class);
+
+    // Open-ended trend bounds; LocalDate.MIN/MAX cannot be converted to BSON dates
+    private static final LocalDate EARLIEST_REPORT_DATE = LocalDate.of(1900, 1, 1);
+    private static final LocalDate LATEST_REPORT_DATE = LocalDate.of(9999, 12, 31);
+
+    private static final Pattern NUMBER = Pattern.compile("-?\\d+(?:\\.\\d+)?");
+
+    private final LabResultRepository labResultRepository;
+    private final ObjectMapper objectMapper;
+    private final MongoTemplate mongoTemplate;
+
+    public LabResultService(LabResultRepository labResultRepository, ObjectMapper objectMapper, MongoTemplate mongoTemplate) {
+        this.labResultRepository = labResultRepository;
+        this.objectMapper = objectMapper;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // Auto-index creation is off, so the trend and per-report lookups need their indexes created here
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            mongoTemplate.indexOps(LabResult.class).ensureIndex(new Index()
+                    .on("patientId", Sort.Direction.ASC).on("testKey", Sort.Direction.ASC).on("reportDate", Sort.Direction.ASC)
+                    .named("patient_test_date"));
+            mongoTemplate.indexOps(LabResult.class).ensureIndex(new Index().on("reportId", Sort.Direction.ASC).named("reportId"));
+        } catch (RuntimeException e) {
+            logger.warn("Could not ensure indexes on lab_results: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Parses the report's {@code testResults} and stores one {@link LabResult} per test,
+     * replacing anything previously recorded for the report.
+     */
+    public List<LabResult> recordResults(MedicalReport report) {
+        if (report.getId() == null || report.getPatient() == null || report.getExtractedData() == null) {
+            return List.of();
+        }
+
+        JsonNode testResults;
+        try {
+            testResults = objectMapper.readTree(report.getExtractedData()).path("testResults");
+        } catch (JsonProcessingException e) {
+            logger.warn("Could not parse extracted data of report {}: {}", report.getId(), e.getMessage());
+            return List.of();
+        }
+
+        List<LabResult> results = new ArrayList<>();
+        for (JsonNode node : testResults) {
+            String testName = node.path("testName").asText("").trim();
+            if (testName.isEmpty()) {
+                continue;
+            }
+            LabResult result = new LabResult(report.getPatient().getId(), report.getId(), testName, report.getReportDate());
+            result.setTestKey(normalizeTestName(testName));
+            result.setValue(node.path("value").asText(""));
+            result.setNumericValue(parseNumber(result.getValue()));
+            result.setUnit(node.path("unit").asText(""));
+            result.setReferenceRange(node.path("referenceRange").asText(""));
+            result.setStatus(node.path("status").asText(""));
+            results.add(result);
+        }
+
+        labResultRepository.deleteByReportId(report.getId());
+        return results.isEmpty() ? results : labResultRepository.saveAll(results);
+    }
+
+    public List<LabResult> getTrend(String patientId, String testName, LocalDate from, LocalDate to) {
+        return labResultRepository.findTrend(patientId, normalizeTestName(testName),
+                from != null ? from : EARLIEST_REPORT_DATE, to != null ? to : LATEST_REPORT_DATE);
+    }
+
+    /**
+     * Case- and punctuation-insensitive key so "HbA1c", "HBA1C" and "Hb-A1c " share a series.
+     */
+    public static String normalizeTestName(String testName) {
+        return testName.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "");
+    }
+
+    private static Double parseNumber(String value) {
+        Matcher matcher = NUMBER.matcher(value.replace(",", ""));
+        return matcher.find() ? Double.valueOf(matcher.group()) : null;
+    }
+}
@@ -0,0 +1,64 @@
+package com.healthcare.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps files in {@code uploads/<bucket>} on this node's disk, where {@link WebConfig}
+ * also serves them as static resources.
+ */
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local", matchIfMissing = true)
+public class LocalFileStore implements FileStore {
+
+    private final Path root;
+
+    public LocalFileStore(@Value("${storage.local.root:uploads}") String root) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public String save(Path localFile, String bucket, String name, String contentType) throws IOException {
+        Path target = resolve(bucket, name);
+        if (!localFile.toAbsolutePath().normalize().equals(target)) {
+            Files.createDirectories(target.getParent());
+            if (Files.exists(target)) {
+                Files.deleteIfExists(localFile);
+            } else {
+                Files.move(localFile, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        return "/uploads/" + bucket + "/" + name;
+    }
+
+    @Override
+    public Optional<StoredResource> open(String bucket, String name) throws IOException {
+        Path file = resolve(bucket, name);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        return Optional.of(new StoredResource(new FileSystemResource(file), Files.probeContentType(file)));
+    }
+
+    @Override
+    public boolean retainsLocalFile() {
+        return true;
+    }
+
+    private Path resolve(String bucket, String name) throws IOException {
+        Path file = root.resolve(bucket).resolve(name).normalize();
+        if (!file.startsWith(root)) {
+            throw new IOException("Invalid file path: " + bucket + "/" + name);
+        }
+        return file;
+    }
+}
@@ -1,38 +1,101 @@
 package com.healthcare.service;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.healthcare.model.LabResult;
 import com.healthcare.model.MedicalReport;
+import com.healthcare.model.ReportContent;
 import com.healthcare.model.User;
 import com.healthcare.repository.MedicalReportRepository;
+import com.healthcare.repository.ReportContentRepository;
 
-import net.sourceforge.tess4j.ITesseract;
-import net.sourceforge.tess4j.Tesseract;
 import net.sourceforge.tess4j.TesseractException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 @Service
 public class MedicalReportService {
 
+    private static final Logger logger = LoggerFactory.getLogger(MedicalReportService.class);
+
+    private static final String AI_ANALYSIS_FAILED = "{\"summary\": \"AI analysis failed. See server logs for details.\", \"testResults\": []}";
+
+    private static final Map<String, String> DTO_FIELD_TO_DOCUMENT_FIELD = Map.of(
+            "id", "_id",
+            "patientName", "patient",
+            "doctorName", "doctor",
+            "type", "reportType",
+            "date", "reportDate",
+            "status", "status",
+            "fileUrl", "fileUrl",
+            "extractedData", "extractedData");
+
     private final MedicalReportRepository medicalReportRepository;
     private final AiService aiService;
+    private final FileStorageService fileStorageService;
+    private final ReportContentRepository reportContentRepository;
+    private final PdfTextExtractor pdfTextExtractor;
+    private final LabResultService labResultService;
+    private final MongoTemplate mongoTemplate;
+    private final FileStore fileStore;
+    private final OcrEnginePool ocrEnginePool;
+    private final OcrImagePreprocessor ocrImagePreprocessor;
+    private final Scheduler fileIoScheduler;
+    private final Scheduler ocrScheduler;
+    private final Scheduler dbScheduler;
+    private final ReportChunker reportChunker;
+    private final LabReportTemplateParser labReportTemplateParser;
 
-    public MedicalReportService(MedicalReportRepository medicalReportRepository, AiService aiService) {
+    @Value("${report.storage.path:uploads/reports}")
+    private String reportStoragePath;
+
+    @Value("${report.analysis.chunk-concurrency:4}")
+    private int chunkConcurrency;
+
+    public MedicalReportService(MedicalReportRepository medicalReportRepository, AiService aiService, FileStorageService fileStorageService,
+                                ReportContentRepository reportContentRepository, PdfTextExtractor pdfTextExtractor,
+                                LabResultService labResultService, MongoTemplate mongoTemplate, FileStore fileStore,
+                                OcrEnginePool ocrEnginePool, OcrImagePreprocessor ocrImagePreprocessor,
+                                @Qualifier("fileIoScheduler") Scheduler fileIoScheduler, @Qualifier("ocrScheduler") Scheduler ocrScheduler,
+                                @Qualifier("dbScheduler") Scheduler dbScheduler, ReportChunker reportChunker,
+                                LabReportTemplateParser labReportTemplateParser) {
         this.medicalReportRepository = medicalReportRepository;
         this.aiService = aiService;
+        this.fileStorageService = fileStorageService;
+        this.reportContentRepository = reportContentRepository;
+        this.pdfTextExtractor = pdfTextExtractor;
+        this.labResultService = labResultService;
+        this.mongoTemplate = mongoTemplate;
+        this.fileStore = fileStore;
+        this.ocrEnginePool = ocrEnginePool;
+        this.ocrImagePreprocessor = ocrImagePreprocessor;
+        this.fileIoScheduler = fileIoScheduler;
+        this.ocrScheduler = ocrScheduler;
+        this.dbScheduler = dbScheduler;
+        this.reportChunker = reportChunker;
+        this.labReportTemplateParser = labReportTemplateParser;
     }
 
     public MedicalReport createReport(User patient, User doctor, String reportType, LocalDate reportDate, String status, String fileUrl) {
@@ -48,6 +111,38 @@ public class MedicalReportService {
         return medicalReportRepository.findByDoctor(doctor);
     }
 
+    public List<MedicalReport> getReportSummariesByPatient(User patient) {
+        return medicalReportRepository.findSummariesByPatient(patient);
+    }
+
+    public List<MedicalReport> getReportSummariesByDoctor(User doctor) {
+        return medicalReportRepository.findSummariesByDoctor(doctor);
+    }
+
+    public Optional<MedicalReport> getReport(String reportId) {
+        return medicalReportRepository.findById(reportId);
+    }
+
+    /**
+     * Loads a report with only the requested fields, named as in the report DTO
+     * (e.g. {@code extractedData}, {@code status}). Unknown names are ignored.
+     */
+    public Optional<MedicalReport> getReport(String reportId, Collection<String> fields) {
+        Query query = new Query(Criteria.where("_id").is(reportId));
+        query.fields().include("_id");
+        for (String field : fields) {
+            String documentField = DTO_FIELD_TO_DOCUMENT_FIELD.get(field.trim());
+            if (documentField != null) {
+                query.fields().include(documentField);
+            }
+        }
+        return Optional.ofNullable(mongoTemplate.findOne(query, MedicalReport.class));
+    }
+
+    public List<LabResult> getLabTrend(User patient, String testName, LocalDate from, LocalDate to) {
+        return labResultService.getTrend(patient.getId(), testName, from, to);
+    }
+
     public List<MedicalReport> getPendingReportsByPatient(User patient) {
         return medicalReportRepository.findByPatientAndStatus(patient, "Pending Review");
     }
@@ -60,83 +155,170 @@ public class MedicalReportService {
 
     // New method to upload and extract report data
     public Mono<MedicalReport> uploadAndExtractReport(MultipartFile file, User patient, String reportType, LocalDate reportDate, String description) {
-        return Mono.fromCallable(() -> { // Step 1: Save the file (blocking I/O)
-            // Save the uploaded file
-            String fileName = System.currentTimeMillis() + "_" + file.getOriginalFilename();
-            Path uploadPath = Paths.get("uploads", "reports");
-            Files.createDirectories(uploadPath);
-            Path filePath = uploadPath.resolve(fileName);
-            Files.write(filePath, file.getBytes());
-            String fileUrl = "/uploads/reports/" + fileName;
-            return fileUrl;
-        }).flatMap(fileUrl -> {
-            // Step 2: Extract text (blocking I/O and can throw IOException)
-            return Mono.fromCallable(() -> extractTextFromFile(file))
-                .flatMap(extractedText -> 
-                    // Step 3: Analyze with AI (asynchronous)
-                    analyzeReportWithAI(extractedText, reportType)
-                )
+        return uploadAndExtractReport(Mono.fromCallable(() -> { // Step 1: Stream the upload to local storage, hashing it on the way (blocking I/O)
+            try (InputStream inputStream = file.getInputStream()) {
+                String extension = FileStorageService.extensionOf(file.getOriginalFilename());
+                return fileStore.retainsLocalFile()
+                        ? fileStorageService.storeContentAddressed(inputStream, reportsDir(), extension)
+                        : fileStorageService.storeWorkingCopy(inputStream, reportsDir(), extension);
+            }
+        }), file.getContentType(), patient, reportType, reportDate);
+    }
+
+    /**
+     * Processes a report file that has already been written to disk, e.g. by a resumable upload.
+     * The file is moved into content-addressed storage.
+     */
+    public Mono<MedicalReport> uploadAndExtractReport(Path uploadedFile, String originalFilename, String contentType, User patient,
+                                                      String reportType, LocalDate reportDate, String description) {
+        return uploadAndExtractReport(Mono.fromCallable(() -> {
+            String extension = FileStorageService.extensionOf(originalFilename);
+            return fileStore.retainsLocalFile()
+                    ? fileStorageService.storeContentAddressed(uploadedFile, reportsDir(), extension)
+                    : fileStorageService.storeWorkingCopy(uploadedFile, reportsDir(), extension);
+        }), contentType, patient, reportType, reportDate);
+    }
+
+    private Mono<MedicalReport> uploadAndExtractReport(Mono<FileStorageService.StoredFile> storedUpload, String contentType, User patient,
+                                                       String reportType, LocalDate reportDate) {
+        // Each blocking stage runs on its own bounded scheduler, never on the caller's or Netty's thread
+        return storedUpload.map(storedFile -> {
+            String fileUrl = saveToFileStore(storedFile, contentType);
+            return new StoredReport(storedFile, fileUrl);
+        }).subscribeOn(fileIoScheduler).publishOn(dbScheduler).flatMap(stored -> {
+            ReportContent knownContent = reportContentRepository.findById(stored.file().contentHash()).orElse(null);
+            // Step 2 + 3: Reuse a previous extraction/analysis of the same bytes, or run OCR and AI
+            return resolveAnalysis(stored.file(), stored.fileUrl(), knownContent, reportType)
+                .publishOn(dbScheduler)
                 .map(structuredData -> { // Step 4: Create and save the report
-                MedicalReport report = new MedicalReport(patient, null, reportType, reportDate, "Completed", fileUrl);
+                MedicalReport report = new MedicalReport(patient, null, reportType, reportDate, "Completed", stored.fileUrl());
                 report.setExtractedData(structuredData);
-                return medicalReportRepository.save(report);
-            });
+                MedicalReport savedReport = medicalReportRepository.save(report);
+                labResultService.recordResults(savedReport);
+                return savedReport;
+            })
+                .doFinally(signal -> discardWorkingCopy(stored.file().path()));
         });
     }
 
-    private File convertMultiPartToFile(MultipartFile file) throws IOException {
-        File convFile = new File(System.getProperty("java.io.tmpdir") + "/" + file.getOriginalFilename());
-        try (FileOutputStream fos = new FileOutputStream(convFile)) {
-            fos.write(file.getBytes());
+    private Path reportsDir() {
+        return Paths.get(reportStoragePath);
+    }
+
+    private String saveToFileStore(FileStorageService.StoredFile storedFile, String contentType) {
+        // Stored under its content hash whatever the working copy is called, so identical uploads share one entry
+        String name = storedFile.contentHash() + FileStorageService.extensionOf(storedFile.path().getFileName().toString());
+        try {
+            return fileStore.save(storedFile.path(), FileStore.REPORTS_BUCKET, name, contentType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return convFile;
     }
 
-    private String extractTextFromFile(MultipartFile file) throws IOException {
-        File convFile = convertMultiPartToFile(file);
-        String fileName = file.getOriginalFilename();
-        String extractedText;
+    private record StoredReport(FileStorageService.StoredFile file, String fileUrl) {}
 
+    // Only the file store's own copy is shared; working copies belong to a single request
+    private void discardWorkingCopy(Path workingFile) {
+        if (fileStore.retainsLocalFile()) {
+            return;
+        }
         try {
-            if (fileName != null && (fileName.toLowerCase().endsWith(".jpg") || fileName.toLowerCase().endsWith(".jpeg") || fileName.toLowerCase().endsWith(".png") || fileName.toLowerCase().endsWith(".webp"))) {
-                ITesseract tesseract = new Tesseract();
-                String tessdataPath = System.getProperty("user.dir") + "/../tessdata";
-                tesseract.setDatapath(tessdataPath);
-                tesseract.setLanguage("eng");
-                extractedText = tesseract.doOCR(convFile);
-            } else if (fileName != null && fileName.toLowerCase().endsWith(".pdf")) {
-                try (PDDocument document = PDDocument.load(convFile)) {
-                    if (!document.isEncrypted()) {
-                        PDFTextStripper pdfStripper = new PDFTextStripper();
-                        extractedText = pdfStripper.getText(document);
-                    } else {
-                        extractedText = "Error: Encrypted PDF files are not supported.";
+            Files.deleteIfExists(workingFile);
+        } catch (IOException e) {
+            logger.warn("Could not delete working copy {}: {}", workingFile, e.getMessage());
+        }
+    }
+
+    private Mono<String> resolveAnalysis(FileStorageService.StoredFile storedFile, String fileUrl, ReportContent knownContent, String reportType) {
+        if (knownContent != null && knownContent.getExtractedData() != null && Objects.equals(knownContent.getReportType(), reportType)) {
+            logger.info("Reusing analysis for previously processed report content {}", storedFile.contentHash());
+            return Mono.just(knownContent.getExtractedData());
+        }
+
+        Mono<String> extractedText = knownContent != null && knownContent.getExtractedText() != null
+                ? Mono.just(knownContent.getExtractedText())
+                : Mono.fromCallable(() -> extractTextFromFile(storedFile.path())).subscribeOn(ocrScheduler);
+
+        return extractedText.flatMap(text -> analyzeReportWithAI(text, reportType)
+                // The AI response arrives on a Netty event loop; move off it before touching Mongo
+                .publishOn(dbScheduler)
+                .doOnNext(structuredData -> {
+                    ReportContent content = knownContent != null ? knownContent : new ReportContent(storedFile.contentHash(), fileUrl, text);
+                    content.setExtractedText(text);
+                    // Only complete, successful analyses are worth reusing; failures should be retried next time
+                    if (structuredData.startsWith("{") && !structuredData.equals(AI_ANALYSIS_FAILED)) {
+                        content.setReportType(reportType);
+                        content.setExtractedData(structuredData);
                     }
+                    reportContentRepository.save(content);
+                }));
+    }
+
+    private String extractTextFromFile(Path filePath) throws IOException {
+        String fileName = filePath.getFileName().toString().toLowerCase();
+        String extractedText;
+
+        try {
+            if (fileName.endsWith(".jpg") || fileName.endsWith(".jpeg") || fileName.endsWith(".png") || fileName.endsWith(".webp")) {
+                extractedText = ocrEnginePool.recognize(ocrImagePreprocessor.load(filePath.toFile()));
+            } else if (fileName.endsWith(".pdf")) {
+                PdfTextExtractor.PdfExtractionResult result = pdfTextExtractor.extract(filePath);
+                if (!result.encrypted()) {
+                    extractedText = result.text();
+                } else {
+                    extractedText = "Error: Encrypted PDF files are not supported.";
                 }
             } else {
-                throw new IOException("Unsupported file type: " + fileName);
+                throw new IOException("Unsupported file type: " + filePath.getFileName());
             }
         } catch (TesseractException e) {
             throw new IOException("Error during OCR text extraction: " + e.getMessage(), e);
-        } finally {
-            if (convFile.exists()) {
-                convFile.delete();
-            }
         }
 
         return extractedText;
     }
 
     private Mono<String> analyzeReportWithAI(String extractedText, String reportType) {
+        // Reports from labs with a known layout are parsed locally; only the rest go to the AI
+        Optional<String> templated = labReportTemplateParser.parse(extractedText);
+        if (templated.isPresent()) {
+            return Mono.just(templated.get());
+        }
+
+        List<String> chunks = reportChunker.split(extractedText);
+        if (chunks.size() == 1) {
+            return analyzeChunk(chunks.get(0), reportType, "");
+        }
+
+        // Long reports: analyse chunks in parallel, then merge the answers in chunk order
+        logger.info("Analysing {} chars of report text in {} chunks", extractedText.length(), chunks.size());
+        return Flux.range(0, chunks.size())
+            .flatMapSequential(i -> analyzeChunk(chunks.get(i), reportType,
+                    "This text is part " + (i + 1) + " of " + chunks.size() + " of the report; analyse only this part. "), chunkConcurrency)
+            .collectList()
+            .map(analyses -> {
+                ReportChunker.MergedAnalysis merged = reportChunker.merge(analyses);
+                // A chunk refused by the rate limiter or failed upstream would leave its tests out
+                // of the merge, so the whole report fails and is analysed again on the next upload
+                if (!merged.complete()) {
+                    logger.warn("Report analysis failed: not every one of its {} chunks was analysed", chunks.size());
+                    return AI_ANALYSIS_FAILED;
+                }
+                return merged.json();
+            });
+    }
+
+    private Mono<String> analyzeChunk(String text, String reportType, String partNote) {
         // Use AI service to analyze the extracted text and structure it
         String prompt = "Analyze this medical report text and return ONLY a valid JSON object. " +
                 "The JSON object should have two keys: 'summary' (a brief summary of the findings) and 'testResults' (an array of objects). " +
                 "Each object in 'testResults' should have the following keys: 'testName', 'value', 'unit', 'referenceRange', and 'status' ('normal', 'high', or 'low'). " +
                 "If information for a field is not available, use an empty string or an empty array. " +
-                "Report type: " + reportType + ". Text: " + extractedText;
+                partNote + "Report type: " + reportType + ". Text: " + text;
         
-        return aiService.queryAI(prompt, "english")
+        // Report text is patient data, so the answer is not cached
+        return aiService.queryAI(prompt, "english", false)
             .map(response -> response.replaceAll("```json\\s*", "").replaceAll("\\s*```", "").trim())
-            .onErrorReturn("{\"summary\": \"AI analysis failed. See server logs for details.\", \"testResults\": []}");
+            .onErrorReturn(AI_ANALYSIS_FAILED);
     }
 }
@@ -0,0 +1,186 @@
+package com.healthcare.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.healthcare.model.Medicine;
+import com.healthcare.repository.MedicineRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * In-memory trigram index over the verified medicine catalogue. OCR text from a scan is
+ * matched against brand name, generic name and manufacturer so that well-known medicines
+ * can be answered from the catalogue without a Gemini round-trip.
+ */
+@Service
+public class MedicineCatalogIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(MedicineCatalogIndex.class);
+
+    private static final int BRAND = 0;
+    private static final int GENERIC = 1;
+    private static final int MANUFACTURER = 2;
+    private static final double[] FIELD_WEIGHTS = {0.6, 0.3, 0.1};
+
+    public record CatalogMatch(Medicine medicine, double score) {}
+
+    // One posting per (medicine, field) that contains the trigram
+    private record Posting(int medicine, int field) {}
+
+    private record Snapshot(List<Medicine> medicines, int[][] trigramCounts, Map<String, List<Posting>> postings) {
+
+        static final Snapshot EMPTY = new Snapshot(List.of(), new int[0][], Map.of());
+    }
+
+    private final MedicineRepository medicineRepository;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Timer matchTimer;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @Value("${medicine.catalog.match.enabled:true}")
+    private boolean enabled;
+
+    @Value("${medicine.catalog.match.min-score:0.85}")
+    private double minScore;
+
+    @Value("${medicine.catalog.match.min-brand-score:0.9}")
+    private double minBrandScore;
+
+    public MedicineCatalogIndex(MedicineRepository medicineRepository, MeterRegistry meterRegistry) {
+        this.medicineRepository = medicineRepository;
+        this.hitCounter = Counter.builder("medicine.catalog.lookups").tag("result", "hit")
+                .description("Scans answered from the verified medicine catalogue").register(meterRegistry);
+        this.missCounter = Counter.builder("medicine.catalog.lookups").tag("result", "miss")
+                .description("Scans that fell through to the AI").register(meterRegistry);
+        this.matchTimer = Timer.builder("medicine.catalog.match").description("Time spent matching OCR text against the catalogue").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${medicine.catalog.refresh-interval-ms:300000}", fixedDelayString = "${medicine.catalog.refresh-interval-ms:300000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<Medicine> medicines = medicineRepository.findByVerifiedTrue();
+            snapshot = build(medicines);
+            logger.info("Indexed {} verified medicines for scan matching", medicines.size());
+        } catch (RuntimeException e) {
+            logger.warn("Could not refresh the medicine catalogue index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the best catalogue entry for the OCR text if it is a confident match.
+     * A match needs nearly all trigrams of the brand name to appear in the text and
+     * a high weighted score across brand, generic and manufacturer.
+     */
+    public Optional<CatalogMatch> match(String ocrText) {
+        Snapshot current = snapshot;
+        if (!enabled || current.medicines().isEmpty() || ocrText == null || ocrText.isBlank()) {
+            missCounter.increment();
+            return Optional.empty();
+        }
+
+        long start = System.nanoTime();
+        Optional<CatalogMatch> match = bestMatch(current, trigrams(ocrText));
+        matchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        (match.isPresent() ? hitCounter : missCounter).increment();
+        return match;
+    }
+
+    private Optional<CatalogMatch> bestMatch(Snapshot current, Set<String> textTrigrams) {
+        Map<Integer, int[]> found = new HashMap<>();
+        for (String trigram : textTrigrams) {
+            for (Posting posting : current.postings().getOrDefault(trigram, List.of())) {
+                found.computeIfAbsent(posting.medicine(), key -> new int[3])[posting.field()]++;
+            }
+        }
+
+        CatalogMatch best = null;
+        for (Map.Entry<Integer, int[]> entry : found.entrySet()) {
+            int[] totals = current.trigramCounts()[entry.getKey()];
+            int[] hits = entry.getValue();
+            if (totals[BRAND] == 0) {
+                continue;
+            }
+            double brandScore = (double) hits[BRAND] / totals[BRAND];
+            if (brandScore < minBrandScore) {
+                continue;
+            }
+            double score = 0;
+            double weights = 0;
+            for (int field = BRAND; field <= MANUFACTURER; field++) {
+                if (totals[field] > 0) {
+                    score += FIELD_WEIGHTS[field] * hits[field] / totals[field];
+                    weights += FIELD_WEIGHTS[field];
+                }
+            }
+            score /= weights;
+            if (score >= minScore && (best == null || score > best.score())) {
+                best = new CatalogMatch(current.medicines().get(entry.getKey()), score);
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    private static Snapshot build(List<Medicine> medicines) {
+        Map<String, List<Posting>> postings = new HashMap<>();
+        int[][] trigramCounts = new int[medicines.size()][];
+        for (int i = 0; i < medicines.size(); i++) {
+            Medicine medicine = medicines.get(i);
+            String[] fields = {medicine.getBrandName(), medicine.getGeneric(), medicine.getManufacturer()};
+            trigramCounts[i] = new int[3];
+            for (int field = BRAND; field <= MANUFACTURER; field++) {
+                Set<String> fieldTrigrams = trigrams(fields[field]);
+                trigramCounts[i][field] = fieldTrigrams.size();
+                for (String trigram : fieldTrigrams) {
+                    postings.computeIfAbsent(trigram, key -> new ArrayList<>()).add(new Posting(i, field));
+                }
+            }
+        }
+        return new Snapshot(List.copyOf(medicines), trigramCounts, postings);
+    }
+
+    /**
+     * Trigrams of each word after lower-casing and stripping punctuation, with word
+     * boundaries padded so short names still produce distinctive grams.
+     */
+    static Set<String> trigrams(String text) {
+        Set<String> trigrams = new LinkedHashSet<>();
+        if (text == null) {
+            return trigrams;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^a-z0-9]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = " " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams.add(padded.substring(i, i + 3));
+            }
+        }
+        return trigrams;
+    }
+}
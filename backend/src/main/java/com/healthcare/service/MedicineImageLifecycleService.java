@@ -0,0 +1,384 @@
+package com.healthcare.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.healthcare.model.MedicineScan;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps the local medicine image store from growing without bound. A background sweeper
+ * walks {@code medicine_images} oldest first and
+ * <ul>
+ *   <li>recompresses originals older than {@code recompress-after} to JPEG at a lower quality
+ *       and renames them to their SHA-256, so identical images collapse into one file;</li>
+ *   <li>moves compacted images older than {@code cold-after} to the {@code medicine_images_cold}
+ *       bucket, which can be mounted on cheaper storage.</li>
+ * </ul>
+ * Every rename is followed by repointing {@link MedicineScan#getImageUrl()}, and an original is
+ * only removed once a scan has actually been repointed. Files that no scan references, under
+ * either the URL or the legacy absolute-path form, are left alone until they are older than
+ * {@code orphan-grace} and then deleted. The sweeper runs on its own thread and limits itself
+ * to {@code max-bytes-per-second} of image data.
+ */
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local", matchIfMissing = true)
+public class MedicineImageLifecycleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MedicineImageLifecycleService.class);
+
+    private static final Pattern CONTENT_ADDRESSED_NAME = Pattern.compile("[0-9a-f]{64}\\.[a-z0-9]+");
+
+    private final LocalFileStore localFileStore;
+    private final FileStorageService fileStorageService;
+    private final OcrImagePreprocessor ocrImagePreprocessor;
+    private final MongoTemplate mongoTemplate;
+    private final Counter recompressedCounter;
+    private final Counter deduplicatedCounter;
+    private final Counter movedToColdCounter;
+    private final Counter orphansDeletedCounter;
+    private final Counter bytesReclaimedCounter;
+    // Unreferenced files still within the grace period, skipped so they cannot fill every sweep's
+    // quota. Holds at most the orphans younger than orphan-grace: entries leave once deleted.
+    private final Set<Path> unreferenced = new HashSet<>();
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "image-lifecycle");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    @Value("${storage.local.root:uploads}")
+    private String storageRoot;
+
+    // Scans saved before the file store recorded the image's absolute path under this directory
+    @Value("${medicine.scan.image.storage.path:uploads/medicine_images}")
+    private String legacyImageStoragePath;
+
+    @Value("${medicine.image.lifecycle.enabled:true}")
+    private boolean enabled;
+
+    @Value("${medicine.image.lifecycle.sweep-interval:1h}")
+    private Duration sweepInterval;
+
+    @Value("${medicine.image.lifecycle.recompress-after:7d}")
+    private Duration recompressAfter;
+
+    @Value("${medicine.image.lifecycle.cold-after:30d}")
+    private Duration coldAfter;
+
+    // Unreferenced files older than this are deleted; keep it well above recompress-after
+    @Value("${medicine.image.lifecycle.orphan-grace:30d}")
+    private Duration orphanGrace;
+
+    @Value("${medicine.image.lifecycle.jpeg-quality:0.7}")
+    private float jpegQuality;
+
+    @Value("${medicine.image.lifecycle.max-bytes-per-second:5242880}")
+    private long maxBytesPerSecond;
+
+    @Value("${medicine.image.lifecycle.max-files-per-sweep:500}")
+    private int maxFilesPerSweep;
+
+    public MedicineImageLifecycleService(LocalFileStore localFileStore, FileStorageService fileStorageService,
+                                         OcrImagePreprocessor ocrImagePreprocessor, MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.localFileStore = localFileStore;
+        this.fileStorageService = fileStorageService;
+        this.ocrImagePreprocessor = ocrImagePreprocessor;
+        this.mongoTemplate = mongoTemplate;
+        this.recompressedCounter = Counter.builder("medicine.images.lifecycle").tag("action", "recompressed").register(meterRegistry);
+        this.deduplicatedCounter = Counter.builder("medicine.images.lifecycle").tag("action", "deduplicated").register(meterRegistry);
+        this.movedToColdCounter = Counter.builder("medicine.images.lifecycle").tag("action", "moved_cold").register(meterRegistry);
+        this.orphansDeletedCounter = Counter.builder("medicine.images.lifecycle").tag("action", "orphan_deleted").register(meterRegistry);
+        this.bytesReclaimedCounter = Counter.builder("medicine.images.lifecycle.bytes.reclaimed").baseUnit("bytes").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // Repointing looks scans up by image URL
+            mongoTemplate.indexOps(MedicineScan.class).ensureIndex(new Index().on("imageUrl", Sort.Direction.ASC).named("image_url"));
+        } catch (RuntimeException e) {
+            logger.warn("Could not ensure imageUrl index on medicine_scans: {}", e.getMessage());
+        }
+        sweeper.scheduleWithFixedDelay(this::sweepSafely, sweepInterval.toMillis(), sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    private void sweepSafely() {
+        try {
+            sweep();
+        } catch (RuntimeException e) {
+            logger.error("Medicine image sweep failed: {}", e.getMessage(), e);
+        }
+    }
+
+    void sweep() {
+        Path hotDirectory = Paths.get(storageRoot).toAbsolutePath().resolve(FileStore.MEDICINE_IMAGES_BUCKET);
+        if (!Files.isDirectory(hotDirectory)) {
+            return;
+        }
+        Instant now = Instant.now();
+        Instant recompressBefore = now.minus(recompressAfter);
+        Instant coldBefore = now.minus(coldAfter);
+        Instant orphanBefore = now.minus(orphanGrace);
+
+        // Forget files removed by anything else; orphans past the grace period become candidates again
+        unreferenced.removeIf(file -> !Files.exists(file));
+        List<Path> candidates;
+        try (Stream<Path> files = Files.list(hotDirectory)) {
+            candidates = files
+                    .filter(Files::isRegularFile)
+                    .filter(file -> !file.getFileName().toString().endsWith(".part"))
+                    .filter(file -> !unreferenced.contains(file) || lastModified(file).isBefore(orphanBefore))
+                    .filter(file -> lastModified(file).isBefore(recompressBefore))
+                    .sorted(Comparator.comparing(MedicineImageLifecycleService::lastModified))
+                    .limit(maxFilesPerSweep)
+                    .toList();
+        } catch (IOException e) {
+            logger.warn("Could not list {}: {}", hotDirectory, e.getMessage());
+            return;
+        }
+
+        long start = System.nanoTime();
+        long bytesProcessed = 0;
+        int orphansDeleted = 0;
+        for (Path file : candidates) {
+            try {
+                long size = Files.size(file);
+                boolean processed;
+                if (!CONTENT_ADDRESSED_NAME.matcher(file.getFileName().toString()).matches()) {
+                    processed = compact(file);
+                } else if (lastModified(file).isBefore(coldBefore)) {
+                    processed = moveToCold(file);
+                } else {
+                    continue;
+                }
+                if (!processed) {
+                    if (lastModified(file).isBefore(orphanBefore)) {
+                        Files.delete(file);
+                        unreferenced.remove(file);
+                        orphansDeletedCounter.increment();
+                        bytesReclaimedCounter.increment(size);
+                        orphansDeleted++;
+                    } else {
+                        unreferenced.add(file);
+                        logger.debug("Skipping medicine image {}: no scan references it", file.getFileName());
+                    }
+                    continue;
+                }
+                bytesProcessed += size;
+                throttle(start, bytesProcessed);
+            } catch (IOException | UncheckedIOException e) {
+                logger.warn("Skipping medicine image {}: {}", file.getFileName(), e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (!candidates.isEmpty()) {
+            logger.info("Medicine image sweep processed {} files ({} bytes) in {} ms; deleted {} orphaned files, {} more within the grace period",
+                    candidates.size(), bytesProcessed, (System.nanoTime() - start) / 1_000_000, orphansDeleted, unreferenced.size());
+        }
+    }
+
+    /**
+     * Recompresses an original upload and stores it under its content hash. If identical
+     * bytes are already stored, the scans are simply repointed at the existing file.
+     * Returns false, leaving the original in place, if no scan references it.
+     */
+    private boolean compact(Path original) throws IOException {
+        Query references = referencesTo(original);
+        if (!mongoTemplate.exists(references, MedicineScan.class)) {
+            return false;
+        }
+        FileTime uploadedAt = Files.getLastModifiedTime(original);
+        long originalSize = Files.size(original);
+        Path candidate = original;
+        String extension = FileStorageService.extensionOf(original.getFileName().toString());
+
+        Path recompressed = original.resolveSibling(UUID.randomUUID() + ".part");
+        try {
+            if (writeJpeg(original, recompressed) && Files.size(recompressed) < originalSize) {
+                candidate = recompressed;
+                extension = ".jpg";
+            }
+
+            String name = fileStorageService.contentHash(candidate) + extension;
+            Path target = original.resolveSibling(name);
+            boolean duplicate = Files.exists(target);
+            String newUrl;
+            if (duplicate) {
+                newUrl = urlOf(FileStore.MEDICINE_IMAGES_BUCKET, target);
+            } else {
+                if (candidate == original) {
+                    // Keep the original bytes; a copy lets the old URL keep working until scans are repointed
+                    Files.copy(original, recompressed, StandardCopyOption.REPLACE_EXISTING);
+                    candidate = recompressed;
+                }
+                newUrl = localFileStore.save(candidate, FileStore.MEDICINE_IMAGES_BUCKET, name, null);
+                Files.setLastModifiedTime(target, uploadedAt);
+            }
+
+            if (repoint(references, newUrl) == 0) {
+                // The scans went away meanwhile; keep the original and drop a copy only this call made
+                if (!duplicate) {
+                    Files.deleteIfExists(target);
+                }
+                return false;
+            }
+            Files.delete(original);
+
+            long reclaimed = duplicate ? originalSize : originalSize - Files.size(target);
+            bytesReclaimedCounter.increment(Math.max(0, reclaimed));
+            (duplicate ? deduplicatedCounter : recompressedCounter).increment();
+            return true;
+        } finally {
+            Files.deleteIfExists(recompressed);
+        }
+    }
+
+    // Returns false, leaving the file in place, if no scan references it
+    private boolean moveToCold(Path file) throws IOException {
+        Query references = referencesTo(file);
+        if (!mongoTemplate.exists(references, MedicineScan.class)) {
+            return false;
+        }
+        String name = file.getFileName().toString();
+        String newUrl = localFileStore.save(file, FileStore.MEDICINE_IMAGES_COLD_BUCKET, name, null);
+        repoint(references, newUrl);
+        movedToColdCounter.increment();
+        return true;
+    }
+
+    // Scans pointing at the file by URL, or by the absolute path stored before the file store existed
+    private Query referencesTo(Path file) {
+        Set<String> forms = new LinkedHashSet<>();
+        forms.add(urlOf(FileStore.MEDICINE_IMAGES_BUCKET, file));
+        forms.add(file.toAbsolutePath().toString());
+        forms.add(Paths.get(System.getProperty("user.dir"), legacyImageStoragePath).resolve(file.getFileName()).toString());
+        return Query.query(Criteria.where("imageUrl").in(forms));
+    }
+
+    private long repoint(Query references, String newUrl) {
+        return mongoTemplate.updateMulti(references, Update.update("imageUrl", newUrl), MedicineScan.class).getMatchedCount();
+    }
+
+    /**
+     * Encodes the image as a baseline JPEG at the configured quality, with the EXIF orientation
+     * baked in since the metadata is not carried over. Returns false if the file is not a
+     * decodable image.
+     */
+    private boolean writeJpeg(Path source, Path target) throws IOException {
+        BufferedImage image;
+        try {
+            image = ocrImagePreprocessor.readOriented(source.toFile());
+        } catch (IOException e) {
+            return false;
+        }
+
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rgb.createGraphics();
+        try {
+            // JPEG has no alpha channel; flatten transparent PNGs onto white
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, rgb.getWidth(), rgb.getHeight());
+            graphics.drawImage(image, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            return false;
+        }
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(rgb, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return true;
+    }
+
+    // Sleeps long enough to keep the sweep at or below the configured byte rate
+    private void throttle(long startNanos, long bytesProcessed) throws InterruptedException {
+        if (maxBytesPerSecond <= 0) {
+            return;
+        }
+        long expectedMillis = bytesProcessed * 1000 / maxBytesPerSecond;
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        if (expectedMillis > elapsedMillis) {
+            Thread.sleep(expectedMillis - elapsedMillis);
+        }
+    }
+
+    private static String urlOf(String bucket, Path file) {
+        return "/uploads/" + bucket + "/" + file.getFileName();
+    }
+
+    private static Instant lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant();
+        } catch (IOException e) {
+            return Instant.now();
+        }
+    }
+}
@@ -6,64 +6,116 @@ import com.healthcare.model.PendingMedicine;
 import com.healthcare.model.VerificationStatus;
 import com.healthcare.repository.MedicineRepository;
 import com.healthcare.repository.PendingMedicineRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
 import java.time.LocalDateTime;
-import java.util.Optional;
 
 @Service
 public class MedicineProcessingService {
 
+    private static final Logger logger = LoggerFactory.getLogger(MedicineProcessingService.class);
+
     @Autowired
     private MedicineRepository medicineRepository;
 
     @Autowired
     private PendingMedicineRepository pendingMedicineRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @Autowired
     private ObjectMapper objectMapper;
 
-    @Transactional
-    public Object processScannedMedicine(PendingMedicine scannedData) throws Exception {
-        // 1. Check if a verified medicine already exists in the main database
-        Optional<Medicine> existingVerifiedMedicine = medicineRepository
-                .findByBrandNameAndManufacturer(scannedData.getBrandName(), scannedData.getManufacturer());
+    @Autowired
+    private VerifiedMedicineFilter verifiedMedicineFilter;
 
-        if (existingVerifiedMedicine.isPresent()) {
-            // A verified version exists, return it directly. No admin action needed.
-            return existingVerifiedMedicine.get();
+    /**
+     * Creates the unique medicine key indexes, after filling in keys for documents written
+     * before the key existed. Only one PENDING entry per key is allowed; approved and
+     * rejected entries are kept as history.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureMedicineKeyIndexes() {
+        try {
+            backfillMedicineKeys();
+            mongoTemplate.indexOps(Medicine.class).ensureIndex(new Index().on("medicineKey", Sort.Direction.ASC)
+                    .named("medicine_key").unique()
+                    .partial(PartialIndexFilter.of(Criteria.where("medicineKey").exists(true))));
+            mongoTemplate.indexOps(PendingMedicine.class).ensureIndex(new Index().on("medicineKey", Sort.Direction.ASC)
+                    .named("pending_medicine_key").unique()
+                    .partial(PartialIndexFilter.of(Criteria.where("medicineKey").exists(true)
+                            .and("status").is(VerificationStatus.PENDING.name()))));
+        } catch (RuntimeException e) {
+            // Typically existing duplicates; they have to be merged before the index can be built
+            logger.error("Could not create medicine key indexes: {}", e.getMessage());
         }
+        verifiedMedicineFilter.reload();
+    }
+
+    public Object processScannedMedicine(PendingMedicine scannedData) throws Exception {
+        String medicineKey = Medicine.keyOf(scannedData.getBrandName(), scannedData.getManufacturer());
 
-        // 2. No verified medicine found. Check if an identical one is already pending verification.
-        Optional<PendingMedicine> existingPendingMedicine = pendingMedicineRepository
-                .findByBrandNameAndManufacturerAndStatus(scannedData.getBrandName(), scannedData.getManufacturer(), VerificationStatus.PENDING);
+        // 1. A verified medicine with this key is returned directly. No admin action needed.
+        // The membership filter lets unknown medicines skip this lookup altogether.
+        if (verifiedMedicineFilter.mightContain(medicineKey)) {
+            Medicine existingVerifiedMedicine = mongoTemplate.findOne(
+                    Query.query(Criteria.where("medicineKey").is(medicineKey)), Medicine.class);
+            if (existingVerifiedMedicine != null) {
+                return existingVerifiedMedicine;
+            }
+        }
 
-        if (existingPendingMedicine.isPresent()) {
-            // Already in the queue, return the pending data to avoid duplicates.
-            return existingPendingMedicine.get();
+        // 2. Otherwise atomically return the pending entry for this key, creating it if needed
+        try {
+            return upsertPending(medicineKey, scannedData);
+        } catch (DuplicateKeyException e) {
+            // A concurrent scan inserted the same key between our match and insert; it exists now
+            return upsertPending(medicineKey, scannedData);
         }
+    }
 
-        // 3. This is a new, unverified medicine. Add it to the pending queue.
-        PendingMedicine newPendingMedicine = new PendingMedicine();
-        newPendingMedicine.setBrandName(scannedData.getBrandName());
-        newPendingMedicine.setGeneric(scannedData.getGeneric());
-        newPendingMedicine.setManufacturer(scannedData.getManufacturer());
-        newPendingMedicine.setCategory(scannedData.getCategory());
-        newPendingMedicine.setCritical(scannedData.isCritical());
-        
+    private PendingMedicine upsertPending(String medicineKey, PendingMedicine scannedData) {
+        Query query = Query.query(Criteria.where("medicineKey").is(medicineKey).and("status").is(VerificationStatus.PENDING));
         // The data from AI is already a string, so we just set it.
-        newPendingMedicine.setDosage(scannedData.getDosage());
-        newPendingMedicine.setUses(scannedData.getUses());
-        newPendingMedicine.setSideEffects(scannedData.getSideEffects());
-        newPendingMedicine.setWarnings(scannedData.getWarnings());
-        newPendingMedicine.setFoodInstructions(scannedData.getFoodInstructions());
-
-        newPendingMedicine.setStatus(VerificationStatus.PENDING);
-        newPendingMedicine.setScannedAt(LocalDateTime.now());
+        Update update = new Update()
+                .setOnInsert("medicineKey", medicineKey)
+                .setOnInsert("brandName", scannedData.getBrandName())
+                .setOnInsert("generic", scannedData.getGeneric())
+                .setOnInsert("manufacturer", scannedData.getManufacturer())
+                .setOnInsert("category", scannedData.getCategory())
+                .setOnInsert("isCritical", scannedData.isCritical())
+                .setOnInsert("dosage", scannedData.getDosage())
+                .setOnInsert("uses", scannedData.getUses())
+                .setOnInsert("sideEffects", scannedData.getSideEffects())
+                .setOnInsert("warnings", scannedData.getWarnings())
+                .setOnInsert("foodInstructions", scannedData.getFoodInstructions())
+                .setOnInsert("scannedAt", LocalDateTime.now());
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().upsert(true).returnNew(true), PendingMedicine.class);
+    }
 
-        PendingMedicine savedPendingMedicine = pendingMedicineRepository.save(newPendingMedicine);
-        return savedPendingMedicine;
+    private void backfillMedicineKeys() {
+        Query missingKey = Query.query(Criteria.where("medicineKey").exists(false));
+        for (Medicine medicine : mongoTemplate.find(missingKey, Medicine.class)) {
+            medicine.setMedicineKey(Medicine.keyOf(medicine.getBrandName(), medicine.getManufacturer()));
+            medicineRepository.save(medicine);
+        }
+        for (PendingMedicine pending : mongoTemplate.find(missingKey, PendingMedicine.class)) {
+            pending.setMedicineKey(Medicine.keyOf(pending.getBrandName(), pending.getManufacturer()));
+            pendingMedicineRepository.save(pending);
+        }
     }
-}
\ No newline at end of file
+}
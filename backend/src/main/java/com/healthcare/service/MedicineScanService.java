@@ -1,24 +1,42 @@
 package com.healthcare.service;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.healthcare.model.Medicine;
 import com.healthcare.model.MedicineScan;
 import com.healthcare.repository.MedicineScanRepository;
 
-import net.sourceforge.tess4j.ITesseract;
-import net.sourceforge.tess4j.Tesseract;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import net.sourceforge.tess4j.TesseractException;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 @Service
 public class MedicineScanService {
@@ -26,55 +44,121 @@ public class MedicineScanService {
     private static final Logger logger = LoggerFactory.getLogger(MedicineScanService.class);
 
     private final MedicineScanRepository medicineScanRepository;
+    private final MongoTemplate mongoTemplate;
     private final AiService aiService;
+    private final FileStorageService fileStorageService;
+    private final FileStore fileStore;
+    private final OcrEnginePool ocrEnginePool;
+    private final OcrImagePreprocessor ocrImagePreprocessor;
+    private final MedicineCatalogIndex medicineCatalogIndex;
+    private final ScanResultCache scanResultCache;
+    private final Scheduler fileIoScheduler;
+    private final Scheduler ocrScheduler;
+    private final Scheduler dbScheduler;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Timer aiParseTimer;
+    private final Timer latencySavedTimer;
 
     @Value("${medicine.scan.image.storage.path:uploads/medicine_images}")
     private String imageStoragePath;
 
-    public MedicineScanService(MedicineScanRepository medicineScanRepository, AiService aiService) {
+    public MedicineScanService(MedicineScanRepository medicineScanRepository, MongoTemplate mongoTemplate, AiService aiService, FileStorageService fileStorageService,
+                               FileStore fileStore, OcrEnginePool ocrEnginePool, OcrImagePreprocessor ocrImagePreprocessor,
+                               MedicineCatalogIndex medicineCatalogIndex, ScanResultCache scanResultCache, MeterRegistry meterRegistry,
+                               @Qualifier("fileIoScheduler") Scheduler fileIoScheduler, @Qualifier("ocrScheduler") Scheduler ocrScheduler,
+                               @Qualifier("dbScheduler") Scheduler dbScheduler) {
         this.medicineScanRepository = medicineScanRepository;
+        this.mongoTemplate = mongoTemplate;
         this.aiService = aiService;
+        this.fileStorageService = fileStorageService;
+        this.fileStore = fileStore;
+        this.ocrEnginePool = ocrEnginePool;
+        this.ocrImagePreprocessor = ocrImagePreprocessor;
+        this.medicineCatalogIndex = medicineCatalogIndex;
+        this.scanResultCache = scanResultCache;
+        this.fileIoScheduler = fileIoScheduler;
+        this.ocrScheduler = ocrScheduler;
+        this.dbScheduler = dbScheduler;
+        this.aiParseTimer = Timer.builder("medicine.scan.ai").description("Time spent parsing scan text with the AI").register(meterRegistry);
+        this.latencySavedTimer = Timer.builder("medicine.catalog.latency.saved")
+                .description("Estimated AI time avoided by answering a scan from the catalogue").register(meterRegistry);
+    }
+
+    /**
+     * Scans saved before images went through the file store hold the image's absolute path on
+     * this node instead of a URL. Re-saves each such image through the file store and stores
+     * the returned URL; rows whose file no longer exists are left as they are and logged.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyImageUrls() {
+        Query legacy = Query.query(Criteria.where("imageUrl").exists(true).ne(null)
+                .not().regex("^/(uploads|api/files)/"));
+        legacy.fields().include("imageUrl");
+        int migrated = 0;
+        int missing = 0;
+        try (Stream<MedicineScan> scans = mongoTemplate.stream(legacy, MedicineScan.class)) {
+            for (MedicineScan scan : (Iterable<MedicineScan>) scans::iterator) {
+                if ("IO_ERROR".equals(scan.getImageUrl())) {
+                    continue;
+                }
+                Path legacyFile = Paths.get(scan.getImageUrl());
+                if (!Files.isRegularFile(legacyFile)) {
+                    missing++;
+                    continue;
+                }
+                String imageUrl = fileStore.save(legacyFile, FileStore.MEDICINE_IMAGES_BUCKET, legacyFile.getFileName().toString(),
+                        Files.probeContentType(legacyFile));
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(scan.getId())),
+                        Update.update("imageUrl", imageUrl), MedicineScan.class);
+                migrated++;
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Migrating legacy medicine scan image paths stopped: {}", e.getMessage());
+        }
+        if (migrated > 0 || missing > 0) {
+            logger.info("Migrated {} legacy medicine scan image paths to file store URLs; {} referenced missing files and were left as-is",
+                    migrated, missing);
+        }
     }
 
     public Mono<MedicineScan> processMedicineScan(MultipartFile file) {
-        return Mono.fromCallable(() -> {
-            // Save image to file system
-            String fileName = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-            Path storageDir = Paths.get(System.getProperty("user.dir"), imageStoragePath);
+        return processMedicineScan(Mono.fromCallable(() -> {
+            // Stream image to file system
+            return fileStorageService.store(file, imageStorageDir(), newImageFileName(file.getOriginalFilename()));
+        }), file.getContentType());
+    }
+
+    /**
+     * Processes an image that has already been written to disk, e.g. by a resumable upload.
+     * The file is moved into image storage.
+     */
+    public Mono<MedicineScan> processMedicineScan(Path uploadedFile, String originalFilename, String contentType) {
+        return processMedicineScan(Mono.fromCallable(() -> {
+            Path storageDir = imageStorageDir();
             Files.createDirectories(storageDir);
-            Path filePath = storageDir.resolve(fileName);
-            Files.write(filePath, file.getBytes());
-            return filePath;
-        }).flatMap(filePath -> {
-            // Perform OCR using Tesseract
-            return Mono.fromCallable(() -> {
-                ITesseract tesseract = new Tesseract();
-                String tessdataPath = System.getProperty("user.dir") + "\\tessdata";
-                System.setProperty("TESSDATA_PREFIX", tessdataPath);
-                tesseract.setDatapath(tessdataPath);
-                tesseract.setLanguage("eng");
-                return tesseract.doOCR(filePath.toFile());
-            }).flatMap(extractedText -> {
-                // Use Gemini AI to parse extracted text
-                String prompt = "Parse the following medicine information extracted from an image into a detailed and comprehensive structured JSON format. " +
-                               "Return ONLY valid JSON with these fields: brandName, generic, category, uses (array), dosage, " +
-                               "foodInstructions, sideEffects (object with common and serious arrays), warnings (array), isCritical (boolean). " +
-                               "Provide as much detail as possible in each field. If information is not available, use reasonable defaults or empty arrays. " +
-                               "Extracted text:\n" + extractedText;
-
-                return aiService.queryAI(prompt, "English")
-                    .map(structuredData -> {
-                        String cleanedData = structuredData.replaceAll("```json\\s*", "").replaceAll("\\s*```", "").trim();
-                        MedicineScan medicineScan = new MedicineScan(filePath.toString(), extractedText, cleanedData);
-                        return medicineScanRepository.save(medicineScan);
-                    });
-            }).onErrorResume(TesseractException.class, e -> {
-                logger.error("Tesseract OCR failed: {}", e.getMessage());
-                String fallbackData = "{\"error\": \"OCR failed to extract text from image.\"}";
-                MedicineScan medicineScan = new MedicineScan(filePath.toString(), "OCR_FAILED", fallbackData);
-                return Mono.just(medicineScanRepository.save(medicineScan));
-            });
-        }).onErrorResume(IOException.class, e -> {
+            return Files.move(uploadedFile, storageDir.resolve(newImageFileName(originalFilename)));
+        }), contentType);
+    }
+
+    private Mono<MedicineScan> processMedicineScan(Mono<Path> storedImage, String contentType) {
+        // Each blocking stage runs on its own bounded scheduler, never on the caller's or Netty's thread
+        return storedImage.subscribeOn(fileIoScheduler)
+            .flatMap(filePath -> Mono.fromCallable(() -> scanResultCache.fingerprint(filePath.toFile()))
+                .subscribeOn(ocrScheduler)
+                .publishOn(dbScheduler)
+                .flatMap(imageKey -> {
+                    // A byte-identical upload reuses the earlier result instead of repeating OCR and AI.
+                    // A similar photo, even one that hashes the same, may show another strength of the
+                    // same pack, so it is only reused once OCR confirms it
+                    Optional<ScanResultCache.Match> cached = scanResultCache.find(imageKey);
+                    if (cached.isPresent() && cached.get().identical()) {
+                        discardImage(filePath);
+                        return Mono.just(cached.get().scan());
+                    }
+                    return scanImage(filePath, contentType, cached)
+                        .doOnNext(medicineScan -> scanResultCache.put(imageKey, medicineScan));
+                })
+            ).onErrorResume(IOException.class, e -> {
             logger.error("File I/O error during medicine scan: {}", e.getMessage());
             String fallbackData = "{\"error\": \"Failed to save or process the uploaded image file.\"}";
             MedicineScan medicineScan = new MedicineScan("IO_ERROR", "IO_ERROR", fallbackData);
@@ -82,4 +166,120 @@ public class MedicineScanService {
             return Mono.just(medicineScan);
         });
     }
+
+    private Mono<MedicineScan> scanImage(Path filePath, String contentType, Optional<ScanResultCache.Match> candidate) {
+        // Perform OCR using Tesseract
+        return Mono.fromCallable(() -> ocrEnginePool.recognize(ocrImagePreprocessor.load(filePath.toFile()))).subscribeOn(ocrScheduler).flatMap(extractedText -> {
+            if (candidate.isPresent() && scanResultCache.confirm(candidate.get(), extractedText)) {
+                discardImage(filePath);
+                return Mono.just(candidate.get().scan());
+            }
+
+            // Known medicines are answered from the verified catalogue without an AI call
+            Optional<MedicineCatalogIndex.CatalogMatch> catalogMatch = medicineCatalogIndex.match(extractedText);
+            if (catalogMatch.isPresent()) {
+                recordLatencySaved();
+                logger.info("Matched scan to verified medicine {} (score {})",
+                        catalogMatch.get().medicine().getBrandName(), String.format("%.2f", catalogMatch.get().score()));
+                String structuredData = toStructuredData(catalogMatch.get().medicine());
+                return Mono.fromCallable(() -> saveScan(filePath, contentType, extractedText, structuredData)).subscribeOn(dbScheduler);
+            }
+
+            // Use Gemini AI to parse extracted text
+            String prompt = "Parse the following medicine information extracted from an image into a detailed and comprehensive structured JSON format. " +
+                           "Return ONLY valid JSON with these fields: brandName, generic, category, uses (array), dosage, " +
+                           "foodInstructions, sideEffects (object with common and serious arrays), warnings (array), isCritical (boolean). " +
+                           "Provide as much detail as possible in each field. If information is not available, use reasonable defaults or empty arrays. " +
+                           "Extracted text:\n" + extractedText;
+
+            long aiStart = System.nanoTime();
+            return aiService.queryAI(prompt, "English")
+                .doOnSuccess(result -> aiParseTimer.record(System.nanoTime() - aiStart, TimeUnit.NANOSECONDS))
+                // The AI response arrives on a Netty event loop; move off it before touching disk or Mongo
+                .publishOn(dbScheduler)
+                .map(structuredData -> {
+                    String cleanedData = structuredData.replaceAll("```json\\s*", "").replaceAll("\\s*```", "").trim();
+                    return saveScan(filePath, contentType, extractedText, cleanedData);
+                });
+        }).doOnError(RejectedExecutionException.class, e -> {
+            // OCR or a processing queue is saturated; the caller answers BUSY, so nothing references the image
+            logger.warn("Medicine scan rejected, processing is saturated: {}", e.getMessage());
+            discardImage(filePath);
+        }).onErrorResume(TesseractException.class, e -> {
+            logger.error("Tesseract OCR failed: {}", e.getMessage());
+            String fallbackData = "{\"error\": \"OCR failed to extract text from image.\"}";
+            return Mono.fromCallable(() -> saveScan(filePath, contentType, "OCR_FAILED", fallbackData)).subscribeOn(dbScheduler);
+        });
+    }
+
+    private MedicineScan saveScan(Path filePath, String contentType, String extractedText, String structuredData) {
+        MedicineScan medicineScan = new MedicineScan(persistImage(filePath, contentType), extractedText, structuredData);
+        return medicineScanRepository.save(medicineScan);
+    }
+
+    private Path imageStorageDir() {
+        return Paths.get(System.getProperty("user.dir"), imageStoragePath);
+    }
+
+    private static String newImageFileName(String originalFilename) {
+        return UUID.randomUUID().toString() + "_" + FileStorageService.sanitizeFileName(originalFilename);
+    }
+
+    private void recordLatencySaved() {
+        // Each hit saves roughly one average AI round-trip
+        if (aiParseTimer.count() > 0) {
+            latencySavedTimer.record((long) aiParseTimer.mean(TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Renders a catalogue entry in the same JSON shape the AI prompt asks for
+    private String toStructuredData(Medicine medicine) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("brandName", medicine.getBrandName());
+        node.put("generic", medicine.getGeneric());
+        node.put("manufacturer", medicine.getManufacturer());
+        node.put("category", medicine.getCategory());
+        node.set("uses", parseStoredJson(medicine.getUses()));
+        node.set("dosage", parseStoredJson(medicine.getDosage()));
+        node.put("foodInstructions", medicine.getFoodInstructions());
+        node.set("sideEffects", parseStoredJson(medicine.getSideEffects()));
+        node.set("warnings", parseStoredJson(medicine.getWarnings()));
+        node.put("isCritical", medicine.isCritical());
+        node.put("verified", true);
+        node.put("medicineId", medicine.getId());
+        return node.toString();
+    }
+
+    // Medicine stores its list fields as JSON strings; fall back to plain text if one is not valid JSON
+    private JsonNode parseStoredJson(String value) {
+        if (value == null) {
+            return objectMapper.nullNode();
+        }
+        try {
+            return objectMapper.readTree(value);
+        } catch (JsonProcessingException e) {
+            return objectMapper.getNodeFactory().textNode(value);
+        }
+    }
+
+    private void discardImage(Path filePath) {
+        try {
+            Files.deleteIfExists(filePath);
+        } catch (IOException e) {
+            logger.warn("Could not delete duplicate scan image {}: {}", filePath, e.getMessage());
+        }
+    }
+
+    // Hands the working copy to the configured file store once OCR is done with it
+    private String persistImage(Path filePath, String contentType) {
+        try {
+            String imageUrl = fileStore.save(filePath, FileStore.MEDICINE_IMAGES_BUCKET, filePath.getFileName().toString(), contentType);
+            if (!fileStore.retainsLocalFile()) {
+                Files.deleteIfExists(filePath);
+            }
+            return imageUrl;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
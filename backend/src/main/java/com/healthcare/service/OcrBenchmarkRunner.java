@@ -0,0 +1,136 @@
+package com.healthcare.service;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compares OCR time and character accuracy with and without {@link OcrImagePreprocessor}
+ * over a local sample set. Run with the {@code ocr-benchmark} profile and point
+ * {@code ocr.benchmark.samples-dir} at a directory of images, each with a {@code .txt}
+ * file of the same base name holding the expected text.
+ */
+@Component
+@Profile("ocr-benchmark")
+public class OcrBenchmarkRunner implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(OcrBenchmarkRunner.class);
+
+    private final OcrEnginePool ocrEnginePool;
+    private final OcrImagePreprocessor ocrImagePreprocessor;
+
+    @Value("${ocr.benchmark.samples-dir:ocr-samples}")
+    private String samplesDir;
+
+    public OcrBenchmarkRunner(OcrEnginePool ocrEnginePool, OcrImagePreprocessor ocrImagePreprocessor) {
+        this.ocrEnginePool = ocrEnginePool;
+        this.ocrImagePreprocessor = ocrImagePreprocessor;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        List<Path> samples;
+        try (Stream<Path> files = Files.list(Paths.get(samplesDir))) {
+            samples = files.filter(OcrBenchmarkRunner::isImage).sorted().toList();
+        }
+
+        long rawMillis = 0;
+        long processedMillis = 0;
+        double rawAccuracy = 0;
+        double processedAccuracy = 0;
+        int measured = 0;
+
+        logger.info(String.format("%-40s %10s %10s %10s %10s", "sample", "raw ms", "prep ms", "raw acc", "prep acc"));
+        for (Path sample : samples) {
+            Path truthFile = groundTruthFor(sample);
+            if (!Files.exists(truthFile)) {
+                logger.warn("Skipping {}: no {}", sample.getFileName(), truthFile.getFileName());
+                continue;
+            }
+            String expected = Files.readString(truthFile);
+
+            long start = System.nanoTime();
+            String rawText = ocrEnginePool.recognize(ImageIO.read(sample.toFile()));
+            long raw = (System.nanoTime() - start) / 1_000_000;
+
+            start = System.nanoTime();
+            BufferedImage prepared = ocrImagePreprocessor.load(sample.toFile());
+            String processedText = ocrEnginePool.recognize(prepared);
+            long processed = (System.nanoTime() - start) / 1_000_000;
+
+            double rawAcc = characterAccuracy(rawText, expected);
+            double processedAcc = characterAccuracy(processedText, expected);
+            logger.info(String.format(Locale.ROOT, "%-40s %10d %10d %9.1f%% %9.1f%%",
+                    sample.getFileName(), raw, processed, rawAcc * 100, processedAcc * 100));
+
+            rawMillis += raw;
+            processedMillis += processed;
+            rawAccuracy += rawAcc;
+            processedAccuracy += processedAcc;
+            measured++;
+        }
+
+        if (measured == 0) {
+            logger.warn("No OCR benchmark samples with ground truth found in {}", samplesDir);
+            return;
+        }
+        logger.info(String.format(Locale.ROOT, "%-40s %10d %10d %9.1f%% %9.1f%%", "TOTAL / MEAN (" + measured + " samples)",
+                rawMillis, processedMillis, rawAccuracy / measured * 100, processedAccuracy / measured * 100));
+    }
+
+    private static boolean isImage(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".jpg") || name.endsWith(".jpeg") || name.endsWith(".png") || name.endsWith(".tif") || name.endsWith(".tiff");
+    }
+
+    private static Path groundTruthFor(Path image) {
+        String name = image.getFileName().toString();
+        return image.resolveSibling(name.substring(0, name.lastIndexOf('.')) + ".txt");
+    }
+
+    /**
+     * 1 - (Levenshtein distance / expected length) over whitespace-normalised text, floored at 0.
+     */
+    static double characterAccuracy(String actual, String expected) {
+        String a = normalize(actual);
+        String e = normalize(expected);
+        if (e.isEmpty()) {
+            return a.isEmpty() ? 1.0 : 0.0;
+        }
+        int[] previous = new int[a.length() + 1];
+        int[] current = new int[a.length() + 1];
+        for (int j = 0; j <= a.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= e.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= a.length(); j++) {
+                int substitution = previous[j - 1] + (e.charAt(i - 1) == a.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j] + 1, current[j - 1] + 1));
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.max(0.0, 1.0 - (double) previous[a.length()] / e.length());
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ");
+    }
+}
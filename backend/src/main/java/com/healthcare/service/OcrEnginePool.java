@@ -0,0 +1,236 @@
+package com.healthcare.service;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.sun.jna.Pointer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import net.sourceforge.tess4j.ITessAPI.TessBaseAPI;
+import net.sourceforge.tess4j.TessAPI1;
+import net.sourceforge.tess4j.TesseractException;
+import net.sourceforge.tess4j.util.ImageIOHelper;
+
+/**
+ * Bounded pool of Tesseract engines shared by every OCR caller.
+ * Each engine loads its language data once and is reused across requests, instead of
+ * {@code new Tesseract()} re-initialising the native API on every call. Callers wait for
+ * a free engine up to a timeout; once too many are already waiting, work is rejected.
+ */
+@Component
+public class OcrEnginePool {
+
+    private static final Logger logger = LoggerFactory.getLogger(OcrEnginePool.class);
+
+    /**
+     * Thrown when no engine can be borrowed because the pool is saturated. It is a
+     * {@link RejectedExecutionException}, so callers answer it like any other full queue (503 / BUSY).
+     */
+    public static class OcrPoolSaturatedException extends RejectedExecutionException {
+        private static final long serialVersionUID = 1L;
+
+        public OcrPoolSaturatedException(String message) {
+            super(message);
+        }
+    }
+
+    private final String datapath;
+    private final String language;
+    private final int size;
+    private final long borrowTimeoutMillis;
+    private final boolean prewarm;
+
+    private final BlockingQueue<OcrEngine> idleEngines = new LinkedBlockingQueue<>();
+    private final AtomicInteger createdEngines = new AtomicInteger();
+    private final Semaphore waitingCallers;
+
+    private final Timer waitTimer;
+    private final Timer recognizeTimer;
+    private final Counter rejectedCounter;
+
+    public OcrEnginePool(@Value("${ocr.tessdata.path:tessdata}") String datapath,
+                         @Value("${ocr.language:eng}") String language,
+                         @Value("${ocr.pool.size:0}") int size,
+                         @Value("${ocr.pool.max-waiting:0}") int maxWaiting,
+                         @Value("${ocr.pool.borrow-timeout-ms:30000}") long borrowTimeoutMillis,
+                         @Value("${ocr.pool.prewarm:true}") boolean prewarm,
+                         MeterRegistry meterRegistry) {
+        this.datapath = Paths.get(datapath).toAbsolutePath().toString();
+        this.language = language;
+        this.size = size > 0 ? size : Runtime.getRuntime().availableProcessors();
+        this.waitingCallers = new Semaphore(maxWaiting > 0 ? maxWaiting : this.size * 4);
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.prewarm = prewarm;
+
+        this.waitTimer = Timer.builder("ocr.pool.wait").description("Time spent waiting for an OCR engine").register(meterRegistry);
+        this.recognizeTimer = Timer.builder("ocr.recognize").description("Time spent in Tesseract recognition").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("ocr.pool.rejected").description("OCR requests rejected because the pool was saturated").register(meterRegistry);
+        Gauge.builder("ocr.pool.size", createdEngines, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("ocr.pool.idle", idleEngines, BlockingQueue::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prewarmEngines() {
+        if (!prewarm) {
+            return;
+        }
+        try {
+            while (createdEngines.get() < size) {
+                OcrEngine engine = tryCreateEngine();
+                if (engine == null) {
+                    break;
+                }
+                idleEngines.offer(engine);
+            }
+            logger.info("Initialised {} OCR engines with tessdata at {}", createdEngines.get(), datapath);
+        } catch (TesseractException | LinkageError e) {
+            logger.warn("Could not pre-initialise OCR engines, they will be created on first use: {}", e.getMessage());
+        }
+    }
+
+    public String recognize(File imageFile) throws TesseractException {
+        BufferedImage image;
+        try {
+            image = ImageIO.read(imageFile);
+        } catch (IOException e) {
+            throw new TesseractException("Could not read image " + imageFile.getName() + ": " + e.getMessage(), e);
+        }
+        if (image == null) {
+            throw new TesseractException("Unsupported image format: " + imageFile.getName());
+        }
+        return recognize(image);
+    }
+
+    public String recognize(BufferedImage image) throws TesseractException {
+        OcrEngine engine = borrow();
+        try {
+            return recognizeTimer.recordCallable(() -> engine.recognize(image));
+        } catch (TesseractException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new TesseractException(e);
+        } finally {
+            idleEngines.offer(engine);
+        }
+    }
+
+    private OcrEngine borrow() throws TesseractException {
+        OcrEngine engine = idleEngines.poll();
+        if (engine != null) {
+            waitTimer.record(0, TimeUnit.NANOSECONDS);
+            return engine;
+        }
+        engine = tryCreateEngine();
+        if (engine != null) {
+            waitTimer.record(0, TimeUnit.NANOSECONDS);
+            return engine;
+        }
+
+        if (!waitingCallers.tryAcquire()) {
+            rejectedCounter.increment();
+            throw new OcrPoolSaturatedException("OCR is at capacity, please retry shortly");
+        }
+        long start = System.nanoTime();
+        try {
+            engine = idleEngines.poll(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TesseractException("Interrupted while waiting for an OCR engine", e);
+        } finally {
+            waitingCallers.release();
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (engine == null) {
+            rejectedCounter.increment();
+            throw new OcrPoolSaturatedException("Timed out waiting for an OCR engine");
+        }
+        return engine;
+    }
+
+    private OcrEngine tryCreateEngine() throws TesseractException {
+        int current;
+        do {
+            current = createdEngines.get();
+            if (current >= size) {
+                return null;
+            }
+        } while (!createdEngines.compareAndSet(current, current + 1));
+        try {
+            return new OcrEngine(datapath, language);
+        } catch (TesseractException | RuntimeException | LinkageError e) {
+            createdEngines.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        OcrEngine engine;
+        while ((engine = idleEngines.poll()) != null) {
+            engine.close();
+        }
+    }
+
+    /**
+     * One initialised native Tesseract instance. Not thread-safe; used by one borrower at a time.
+     */
+    private static final class OcrEngine {
+
+        private final TessBaseAPI handle;
+
+        OcrEngine(String datapath, String language) throws TesseractException {
+            handle = TessAPI1.TessBaseAPICreate();
+            if (TessAPI1.TessBaseAPIInit3(handle, datapath, language) != 0) {
+                TessAPI1.TessBaseAPIDelete(handle);
+                throw new TesseractException("Could not initialise Tesseract with tessdata at " + datapath);
+            }
+        }
+
+        String recognize(BufferedImage image) throws TesseractException {
+            int bitsPerPixel = image.getColorModel().getPixelSize();
+            int bytesPerLine = (int) Math.ceil(image.getWidth() * bitsPerPixel / 8.0);
+            ByteBuffer imageData = ImageIOHelper.convertImageData(image);
+            TessAPI1.TessBaseAPISetImage(handle, imageData, image.getWidth(), image.getHeight(), bitsPerPixel / 8, bytesPerLine);
+            Pointer text = TessAPI1.TessBaseAPIGetUTF8Text(handle);
+            try {
+                if (text == null) {
+                    throw new TesseractException("Tesseract returned no text");
+                }
+                return text.getString(0, StandardCharsets.UTF_8.name());
+            } finally {
+                if (text != null) {
+                    TessAPI1.TessDeleteText(text);
+                }
+                TessAPI1.TessBaseAPIClear(handle);
+            }
+        }
+
+        void close() {
+            TessAPI1.TessBaseAPIEnd(handle);
+            TessAPI1.TessBaseAPIDelete(handle);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.healthcare.service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.drew.imaging.ImageMetadataReader;
+import com.drew.imaging.ImageProcessingException;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataException;
+import com.drew.metadata.exif.ExifIFD0Directory;
+
+/**
+ * Prepares camera photos for OCR: applies the EXIF orientation, scales the image to a size
+ * Tesseract reads well, converts it to grayscale, binarises it with a local (Sauvola) threshold
+ * and optionally crops it to the region that contains text. Smaller, cleaner input makes
+ * recognition faster and produces less noise in the text sent to the AI.
+ */
+@Component
+public class OcrImagePreprocessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(OcrImagePreprocessor.class);
+
+    // Sauvola parameters: k weights the local standard deviation, R is its dynamic range
+    private static final double SAUVOLA_K = 0.2;
+    private static final double SAUVOLA_R = 128.0;
+
+    @Value("${ocr.preprocess.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ocr.preprocess.max-dimension:2000}")
+    private int maxDimension;
+
+    @Value("${ocr.preprocess.min-dimension:1000}")
+    private int minDimension;
+
+    @Value("${ocr.preprocess.binarize:true}")
+    private boolean binarize;
+
+    @Value("${ocr.preprocess.crop-text-region:false}")
+    private boolean cropTextRegion;
+
+    /**
+     * Reads an image file and returns the preprocessed image, or the image as read when
+     * preprocessing is disabled.
+     *
+     * @throws IOException if the file cannot be decoded
+     */
+    public BufferedImage load(File imageFile) throws IOException {
+        BufferedImage image = read(imageFile);
+        if (!enabled) {
+            return image;
+        }
+        long start = System.nanoTime();
+        BufferedImage processed = preprocess(image, readOrientation(imageFile));
+        logger.debug("Preprocessed {} from {}x{} to {}x{} in {} ms", imageFile.getName(), image.getWidth(), image.getHeight(),
+                processed.getWidth(), processed.getHeight(), (System.nanoTime() - start) / 1_000_000);
+        return processed;
+    }
+
+    /**
+     * Reads an image file with its EXIF orientation applied and no other processing.
+     */
+    public BufferedImage readOriented(File imageFile) throws IOException {
+        return applyOrientation(read(imageFile), readOrientation(imageFile));
+    }
+
+    public BufferedImage preprocess(BufferedImage image, int exifOrientation) {
+        BufferedImage result = applyOrientation(image, exifOrientation);
+        result = scaleToGray(result);
+        if (binarize) {
+            result = sauvolaBinarize(result);
+            if (cropTextRegion) {
+                result = cropToText(result);
+            }
+        }
+        return result;
+    }
+
+    private static BufferedImage read(File imageFile) throws IOException {
+        BufferedImage image = ImageIO.read(imageFile);
+        if (image == null) {
+            throw new IOException("Unsupported image format: " + imageFile.getName());
+        }
+        return image;
+    }
+
+    private static int readOrientation(File imageFile) {
+        try {
+            Metadata metadata = ImageMetadataReader.readMetadata(imageFile);
+            ExifIFD0Directory directory = metadata.getFirstDirectoryOfType(ExifIFD0Directory.class);
+            if (directory != null && directory.containsTag(ExifIFD0Directory.TAG_ORIENTATION)) {
+                return directory.getInt(ExifIFD0Directory.TAG_ORIENTATION);
+            }
+        } catch (ImageProcessingException | MetadataException | IOException e) {
+            logger.debug("No EXIF orientation for {}: {}", imageFile.getName(), e.getMessage());
+        }
+        return 1;
+    }
+
+    private static BufferedImage applyOrientation(BufferedImage image, int orientation) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        AffineTransform transform = new AffineTransform();
+        boolean swapsDimensions = orientation >= 5 && orientation <= 8;
+
+        switch (orientation) {
+            case 2 -> { transform.scale(-1, 1); transform.translate(-width, 0); }
+            case 3 -> { transform.translate(width, height); transform.rotate(Math.PI); }
+            case 4 -> { transform.scale(1, -1); transform.translate(0, -height); }
+            case 5 -> { transform.rotate(-Math.PI / 2); transform.scale(-1, 1); }
+            case 6 -> { transform.translate(height, 0); transform.rotate(Math.PI / 2); }
+            case 7 -> { transform.scale(-1, 1); transform.translate(-height, 0); transform.translate(0, width); transform.rotate(3 * Math.PI / 2); }
+            case 8 -> { transform.translate(0, width); transform.rotate(3 * Math.PI / 2); }
+            default -> { return image; }
+        }
+
+        BufferedImage oriented = new BufferedImage(swapsDimensions ? height : width, swapsDimensions ? width : height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = oriented.createGraphics();
+        try {
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return oriented;
+    }
+
+    /**
+     * Scales so the longer side lies between the configured bounds, drawing straight into
+     * an 8-bit grayscale image. Large reductions are done in halving steps to avoid aliasing.
+     */
+    private BufferedImage scaleToGray(BufferedImage image) {
+        int longest = Math.max(image.getWidth(), image.getHeight());
+        double scale = 1.0;
+        if (longest > maxDimension) {
+            scale = (double) maxDimension / longest;
+        } else if (longest < minDimension) {
+            scale = (double) minDimension / longest;
+        }
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2, BufferedImage.TYPE_INT_RGB);
+        }
+        return draw(current, targetWidth, targetHeight, BufferedImage.TYPE_BYTE_GRAY);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height, int type) {
+        BufferedImage target = new BufferedImage(width, height, type);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * Sauvola thresholding using integral images of the pixel values and their squares,
+     * so each pixel's local mean and deviation cost O(1) regardless of window size.
+     */
+    private static BufferedImage sauvolaBinarize(BufferedImage gray) {
+        int width = gray.getWidth();
+        int height = gray.getHeight();
+        Raster source = gray.getRaster();
+        int[] pixels = source.getPixels(0, 0, width, height, (int[]) null);
+
+        long[] sum = new long[(width + 1) * (height + 1)];
+        long[] sumSquares = new long[(width + 1) * (height + 1)];
+        for (int y = 0; y < height; y++) {
+            long rowSum = 0;
+            long rowSumSquares = 0;
+            for (int x = 0; x < width; x++) {
+                int value = pixels[y * width + x];
+                rowSum += value;
+                rowSumSquares += (long) value * value;
+                int index = (y + 1) * (width + 1) + (x + 1);
+                sum[index] = sum[index - (width + 1)] + rowSum;
+                sumSquares[index] = sumSquares[index - (width + 1)] + rowSumSquares;
+            }
+        }
+
+        int half = Math.max(7, Math.min(width, height) / 32) / 2;
+        BufferedImage binary = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        WritableRaster target = binary.getRaster();
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            int top = Math.max(0, y - half);
+            int bottom = Math.min(height, y + half + 1);
+            for (int x = 0; x < width; x++) {
+                int left = Math.max(0, x - half);
+                int right = Math.min(width, x + half + 1);
+                long count = (long) (right - left) * (bottom - top);
+                long windowSum = areaSum(sum, width + 1, left, top, right, bottom);
+                long windowSumSquares = areaSum(sumSquares, width + 1, left, top, right, bottom);
+                double mean = (double) windowSum / count;
+                double deviation = Math.sqrt(Math.max(0, (double) windowSumSquares / count - mean * mean));
+                double threshold = mean * (1 + SAUVOLA_K * (deviation / SAUVOLA_R - 1));
+                row[x] = pixels[y * width + x] > threshold ? 255 : 0;
+            }
+            target.setPixels(0, y, width, 1, row);
+        }
+        return binary;
+    }
+
+    private static long areaSum(long[] integral, int stride, int left, int top, int right, int bottom) {
+        return integral[bottom * stride + right] - integral[top * stride + right]
+                - integral[bottom * stride + left] + integral[top * stride + left];
+    }
+
+    /**
+     * Crops a binarised image to the rows and columns that carry a meaningful share of dark
+     * pixels, keeping a small margin. Falls back to the full image if nothing qualifies.
+     */
+    private static BufferedImage cropToText(BufferedImage binary) {
+        int width = binary.getWidth();
+        int height = binary.getHeight();
+        Raster raster = binary.getRaster();
+        int[] rowInk = new int[height];
+        int[] columnInk = new int[width];
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            raster.getPixels(0, y, width, 1, row);
+            for (int x = 0; x < width; x++) {
+                if (row[x] == 0) {
+                    rowInk[y]++;
+                    columnInk[x]++;
+                }
+            }
+        }
+
+        int top = firstAbove(rowInk, width / 200, false);
+        int bottom = firstAbove(rowInk, width / 200, true);
+        int left = firstAbove(columnInk, height / 200, false);
+        int right = firstAbove(columnInk, height / 200, true);
+        if (top < 0 || left < 0 || bottom <= top || right <= left) {
+            return binary;
+        }
+
+        int margin = Math.max(width, height) / 50;
+        int x0 = Math.max(0, left - margin);
+        int y0 = Math.max(0, top - margin);
+        int x1 = Math.min(width, right + margin + 1);
+        int y1 = Math.min(height, bottom + margin + 1);
+        return binary.getSubimage(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    private static int firstAbove(int[] counts, int minimum, boolean fromEnd) {
+        for (int i = 0; i < counts.length; i++) {
+            int index = fromEnd ? counts.length - 1 - i : i;
+            if (counts[index] > minimum) {
+                return index;
+            }
+        }
+        return -1;
+    }
+}
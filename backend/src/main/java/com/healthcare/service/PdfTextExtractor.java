@@ -0,0 +1,204 @@
+package com.healthcare.service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import net.sourceforge.tess4j.TesseractException;
+
+/**
+ * Extracts text from PDFs page by page on a dedicated fork-join pool.
+ * Pages with a text layer are read with {@link PDFTextStripper}; image-only pages
+ * (typically scans) are rendered and passed through Tesseract instead.
+ */
+@Service
+public class PdfTextExtractor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfTextExtractor.class);
+
+    /** Separator placed between pages in {@link PdfExtractionResult#text()}. */
+    public static final String PAGE_SEPARATOR = "\f";
+
+    public record PageText(int pageNumber, String text, boolean ocr, long millis) {}
+
+    public record PdfExtractionResult(boolean encrypted, List<PageText> pages, long totalMillis) {
+
+        public String text() {
+            return pages.stream().map(PageText::text).collect(Collectors.joining(PAGE_SEPARATOR));
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final OcrEnginePool ocrEnginePool;
+
+    @Value("${pdf.extraction.min-pages-per-task:2}")
+    private int minPagesPerTask;
+
+    @Value("${pdf.extraction.min-text-chars:20}")
+    private int minTextChars;
+
+    @Value("${pdf.extraction.ocr-dpi:300}")
+    private int ocrDpi;
+
+    @Value("${pdf.extraction.temp-file-threshold-bytes:16777216}")
+    private long tempFileThresholdBytes;
+
+    public PdfTextExtractor(@Value("${pdf.extraction.parallelism:0}") int parallelism, OcrEnginePool ocrEnginePool) {
+        this.ocrEnginePool = ocrEnginePool;
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("pdf-extract-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public PdfExtractionResult extract(Path pdfFile) throws IOException {
+        long start = System.nanoTime();
+        MemoryUsageSetting memoryUsage = memoryUsageFor(pdfFile);
+
+        int pageCount;
+        try (PDDocument document = PDDocument.load(pdfFile.toFile(), memoryUsage)) {
+            if (document.isEncrypted()) {
+                return new PdfExtractionResult(true, List.of(), elapsedMillis(start));
+            }
+            pageCount = document.getNumberOfPages();
+        }
+
+        List<PageText> pages;
+        if (pageCount == 0) {
+            pages = List.of();
+        } else {
+            int pagesPerTask = Math.max(minPagesPerTask, (pageCount + pool.getParallelism() - 1) / pool.getParallelism());
+            try {
+                pages = pool.invoke(new PageRangeTask(pdfFile, memoryUsage, 0, pageCount, pagesPerTask));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            pages.sort(Comparator.comparingInt(PageText::pageNumber));
+        }
+
+        PdfExtractionResult result = new PdfExtractionResult(false, pages, elapsedMillis(start));
+        logTimings(pdfFile, result);
+        return result;
+    }
+
+    private MemoryUsageSetting memoryUsageFor(Path pdfFile) throws IOException {
+        // Large documents are buffered in scratch files rather than on the heap
+        return Files.size(pdfFile) > tempFileThresholdBytes
+                ? MemoryUsageSetting.setupTempFileOnly()
+                : MemoryUsageSetting.setupMainMemoryOnly();
+    }
+
+    private void logTimings(Path pdfFile, PdfExtractionResult result) {
+        long ocrPages = result.pages().stream().filter(PageText::ocr).count();
+        logger.info("Extracted {} pages ({} via OCR) from {} in {} ms",
+                result.pages().size(), ocrPages, pdfFile.getFileName(), result.totalMillis());
+        if (logger.isDebugEnabled()) {
+            for (PageText page : result.pages()) {
+                logger.debug("Page {}: {} chars, {} in {} ms",
+                        page.pageNumber(), page.text().length(), page.ocr() ? "OCR" : "text layer", page.millis());
+            }
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Splits the page range until it is small enough, then extracts it with a
+     * document instance of its own, since PDFBox documents are not thread-safe.
+     */
+    @SuppressWarnings("serial") // never serialised; ForkJoinTask is Serializable only by inheritance
+    private class PageRangeTask extends RecursiveTask<List<PageText>> {
+
+        private final Path pdfFile;
+        private final MemoryUsageSetting memoryUsage;
+        private final int from;
+        private final int to;
+        private final int pagesPerTask;
+
+        PageRangeTask(Path pdfFile, MemoryUsageSetting memoryUsage, int from, int to, int pagesPerTask) {
+            this.pdfFile = pdfFile;
+            this.memoryUsage = memoryUsage;
+            this.from = from;
+            this.to = to;
+            this.pagesPerTask = pagesPerTask;
+        }
+
+        @Override
+        protected List<PageText> compute() {
+            if (to - from <= pagesPerTask) {
+                try {
+                    return extractRange();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            int middle = (from + to) >>> 1;
+            PageRangeTask left = new PageRangeTask(pdfFile, memoryUsage, from, middle, pagesPerTask);
+            PageRangeTask right = new PageRangeTask(pdfFile, memoryUsage, middle, to, pagesPerTask);
+            left.fork();
+            List<PageText> pages = new ArrayList<>(right.compute());
+            pages.addAll(left.join());
+            return pages;
+        }
+
+        private List<PageText> extractRange() throws IOException {
+            List<PageText> pages = new ArrayList<>(to - from);
+            try (PDDocument document = PDDocument.load(pdfFile.toFile(), memoryUsage)) {
+                PDFTextStripper stripper = new PDFTextStripper();
+                PDFRenderer renderer = null;
+
+                for (int pageIndex = from; pageIndex < to; pageIndex++) {
+                    long start = System.nanoTime();
+                    stripper.setStartPage(pageIndex + 1);
+                    stripper.setEndPage(pageIndex + 1);
+                    String text = stripper.getText(document);
+
+                    boolean ocr = text.strip().length() < minTextChars;
+                    if (ocr) {
+                        // No usable text layer: render the page and OCR it
+                        if (renderer == null) {
+                            renderer = new PDFRenderer(document);
+                        }
+                        BufferedImage image = renderer.renderImageWithDPI(pageIndex, ocrDpi, ImageType.GRAY);
+                        try {
+                            text = ocrEnginePool.recognize(image);
+                        } catch (TesseractException e) {
+                            throw new IOException("Error during OCR of page " + (pageIndex + 1) + ": " + e.getMessage(), e);
+                        }
+                    }
+                    pages.add(new PageText(pageIndex + 1, text, ocr, elapsedMillis(start)));
+                }
+            }
+            return pages;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.healthcare.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.healthcare.model.Medicine;
+import com.healthcare.model.PendingMedicine;
+import com.healthcare.model.VerificationStatus;
+
+/**
+ * Admin review of the pending-medicine queue. The queue is read with keyset pagination on
+ * {@code _id}, so each page costs the same however deep into the backlog it is, and review
+ * decisions are applied in batches with one bulk write to {@code medicines} and one to
+ * {@code pending_medicines} per batch.
+ */
+@Service
+public class PendingMedicineReviewService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PendingMedicineReviewService.class);
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    public record PendingPage(List<PendingMedicine> items, String nextCursor) {}
+
+    public record Decision(String id, VerificationStatus status) {}
+
+    public record DecisionResult(int approved, int rejected, int skipped) {}
+
+    private final MongoTemplate mongoTemplate;
+    private final VerifiedMedicineFilter verifiedMedicineFilter;
+
+    @Value("${medicine.review.batch-size:1000}")
+    private int batchSize;
+
+    public PendingMedicineReviewService(MongoTemplate mongoTemplate, VerifiedMedicineFilter verifiedMedicineFilter) {
+        this.mongoTemplate = mongoTemplate;
+        this.verifiedMedicineFilter = verifiedMedicineFilter;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            mongoTemplate.indexOps(PendingMedicine.class)
+                    .ensureIndex(new Index().on("status", Sort.Direction.ASC).on("_id", Sort.Direction.ASC).named("status_id"));
+        } catch (RuntimeException e) {
+            logger.warn("Could not ensure status index on pending_medicines: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} pending medicines after the given cursor, oldest first.
+     * Pass the returned {@code nextCursor} to fetch the following page; it is null on the last page.
+     */
+    public PendingPage getPendingPage(String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Criteria criteria = Criteria.where("status").is(VerificationStatus.PENDING);
+        if (cursor != null && !cursor.isBlank()) {
+            if (!ObjectId.isValid(cursor)) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            criteria = criteria.and("_id").gt(new ObjectId(cursor));
+        }
+        Query query = Query.query(criteria).with(Sort.by(Sort.Direction.ASC, "_id")).limit(pageSize);
+        List<PendingMedicine> items = mongoTemplate.find(query, PendingMedicine.class);
+        String nextCursor = items.size() == pageSize ? items.get(items.size() - 1).getId() : null;
+        return new PendingPage(items, nextCursor);
+    }
+
+    /**
+     * Applies approve/reject decisions. Approved medicines are upserted into {@code medicines}
+     * by key, so replaying a batch is harmless; items that are no longer pending are skipped.
+     */
+    public DecisionResult applyDecisions(List<Decision> decisions) {
+        int approved = 0;
+        int rejected = 0;
+        int skipped = 0;
+        for (int start = 0; start < decisions.size(); start += batchSize) {
+            DecisionResult result = applyBatch(decisions.subList(start, Math.min(decisions.size(), start + batchSize)));
+            approved += result.approved();
+            rejected += result.rejected();
+            skipped += result.skipped();
+        }
+        logger.info("Applied pending medicine decisions: {} approved, {} rejected, {} skipped", approved, rejected, skipped);
+        return new DecisionResult(approved, rejected, skipped);
+    }
+
+    private DecisionResult applyBatch(List<Decision> batch) {
+        for (Decision decision : batch) {
+            if (decision.status() != VerificationStatus.APPROVED && decision.status() != VerificationStatus.REJECTED) {
+                throw new IllegalArgumentException("Decision must be APPROVED or REJECTED for " + decision.id());
+            }
+        }
+        Map<String, PendingMedicine> pending = loadPending(batch.stream().map(Decision::id).toList());
+        LocalDateTime now = LocalDateTime.now();
+
+        List<PendingMedicine> approvedItems = new ArrayList<>();
+        BulkOperations statusUpdates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PendingMedicine.class);
+        int rejected = 0;
+        for (Decision decision : batch) {
+            PendingMedicine item = pending.get(decision.id());
+            if (item == null) {
+                continue;
+            }
+            if (decision.status() == VerificationStatus.APPROVED) {
+                approvedItems.add(item);
+            } else {
+                rejected++;
+            }
+            // Guarding on PENDING keeps a concurrent reviewer's decision from being overwritten
+            statusUpdates.updateOne(Query.query(Criteria.where("_id").is(item.getId()).and("status").is(VerificationStatus.PENDING)),
+                    Update.update("status", decision.status()));
+        }
+        if (approvedItems.isEmpty() && rejected == 0) {
+            return new DecisionResult(0, 0, batch.size());
+        }
+
+        // Promote first: if the status write fails, retrying the batch re-upserts the same keys
+        if (!approvedItems.isEmpty()) {
+            BulkOperations promotions = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Medicine.class);
+            for (PendingMedicine item : approvedItems) {
+                promotions.upsert(Query.query(Criteria.where("medicineKey").is(keyOf(item))), promotion(item, now));
+            }
+            promotions.execute();
+            approvedItems.forEach(item -> verifiedMedicineFilter.add(keyOf(item)));
+        }
+        statusUpdates.execute();
+
+        return new DecisionResult(approvedItems.size(), rejected, batch.size() - approvedItems.size() - rejected);
+    }
+
+    private Map<String, PendingMedicine> loadPending(Collection<String> ids) {
+        List<ObjectId> objectIds = ids.stream().filter(ObjectId::isValid).map(ObjectId::new).toList();
+        Query query = Query.query(Criteria.where("_id").in(objectIds).and("status").is(VerificationStatus.PENDING));
+        return mongoTemplate.find(query, PendingMedicine.class).stream()
+                .collect(Collectors.toMap(PendingMedicine::getId, Function.identity()));
+    }
+
+    private static Update promotion(PendingMedicine item, LocalDateTime now) {
+        return new Update()
+                .setOnInsert("medicineKey", keyOf(item))
+                .setOnInsert("brandName", item.getBrandName())
+                .setOnInsert("generic", item.getGeneric())
+                .setOnInsert("manufacturer", item.getManufacturer())
+                .setOnInsert("category", item.getCategory())
+                .setOnInsert("dosage", item.getDosage())
+                .setOnInsert("uses", item.getUses())
+                .setOnInsert("sideEffects", item.getSideEffects())
+                .setOnInsert("warnings", item.getWarnings())
+                .setOnInsert("foodInstructions", item.getFoodInstructions())
+                .setOnInsert("isCritical", item.isCritical())
+                .setOnInsert("createdAt", now)
+                .set("verified", true);
+    }
+
+    private static String keyOf(PendingMedicine item) {
+        return item.getMedicineKey() != null ? item.getMedicineKey() : Medicine.keyOf(item.getBrandName(), item.getManufacturer());
+    }
+}
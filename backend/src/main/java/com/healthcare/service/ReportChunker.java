@@ -0,0 +1,147 @@
+package com.healthcare.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Splits long report text into prompt-sized chunks and merges the per-chunk AI analyses back
+ * into one {@code summary}/{@code testResults} object. Chunks follow page boundaries
+ * ({@link PdfTextExtractor#PAGE_SEPARATOR}) first, then blank-line sections, then lines, so a
+ * test row is never cut in half. Merging depends only on chunk order, not on which AI call
+ * finished first.
+ */
+@Component
+public class ReportChunker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportChunker.class);
+
+    private static final Pattern SECTION_BREAK = Pattern.compile("\\n\\s*\\n");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${report.analysis.chunk-chars:12000}")
+    private int maxChunkChars;
+
+    /**
+     * Returns the text as chunks of at most {@code report.analysis.chunk-chars} characters
+     * (unless a single line is longer). Text that already fits is returned as one chunk.
+     */
+    public List<String> split(String text) {
+        if (text == null || text.length() <= maxChunkChars) {
+            return List.of(text == null ? "" : text);
+        }
+        List<String> pieces = new ArrayList<>();
+        for (String page : text.split(Pattern.quote(PdfTextExtractor.PAGE_SEPARATOR))) {
+            addPieces(page, pieces);
+        }
+
+        // Greedily pack consecutive pieces so chunks stay close to the limit
+        List<String> chunks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String piece : pieces) {
+            if (current.length() > 0 && current.length() + 2 + piece.length() > maxChunkChars) {
+                chunks.add(current.toString());
+                current.setLength(0);
+            }
+            if (current.length() > 0) {
+                current.append("\n\n");
+            }
+            current.append(piece);
+        }
+        if (current.length() > 0) {
+            chunks.add(current.toString());
+        }
+        return chunks;
+    }
+
+    private void addPieces(String page, List<String> pieces) {
+        if (page.isBlank()) {
+            return;
+        }
+        if (page.length() <= maxChunkChars) {
+            pieces.add(page.strip());
+            return;
+        }
+        for (String section : SECTION_BREAK.split(page)) {
+            if (section.isBlank()) {
+                continue;
+            }
+            if (section.length() <= maxChunkChars) {
+                pieces.add(section.strip());
+                continue;
+            }
+            StringBuilder lines = new StringBuilder();
+            for (String line : section.split("\\n")) {
+                if (lines.length() > 0 && lines.length() + 1 + line.length() > maxChunkChars) {
+                    pieces.add(lines.toString());
+                    lines.setLength(0);
+                }
+                if (lines.length() > 0) {
+                    lines.append('\n');
+                }
+                lines.append(line);
+            }
+            if (!lines.toString().isBlank()) {
+                pieces.add(lines.toString());
+            }
+        }
+    }
+
+    /**
+     * The merged analysis of a chunked report. {@code complete} is false if any chunk's answer
+     * was not a JSON object, such as an AI fallback message; {@code json} then covers only the
+     * chunks that parsed, and is {@code null} if none did.
+     */
+    public record MergedAnalysis(String json, boolean complete) {}
+
+    /**
+     * Merges per-chunk analyses given in chunk order. Summaries are joined in order and test
+     * results concatenated. Chunks never overlap, so a test found in two chunks is a repeated
+     * measurement and both rows are kept.
+     */
+    public MergedAnalysis merge(List<String> analyses) {
+        List<String> summaries = new ArrayList<>();
+        List<JsonNode> testResults = new ArrayList<>();
+        int failed = 0;
+        for (String analysis : analyses) {
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(analysis);
+            } catch (Exception e) {
+                node = null;
+            }
+            if (node == null || !node.isObject()) {
+                failed++;
+                continue;
+            }
+            String summary = node.path("summary").asText("").strip();
+            if (!summary.isEmpty()) {
+                summaries.add(summary);
+            }
+            node.path("testResults").forEach(testResults::add);
+        }
+        if (failed > 0) {
+            logger.warn("{} of {} report chunks could not be analysed", failed, analyses.size());
+        }
+        if (failed == analyses.size()) {
+            return new MergedAnalysis(null, false);
+        }
+
+        ObjectNode merged = objectMapper.createObjectNode();
+        merged.put("summary", String.join(" ", summaries));
+        ArrayNode results = merged.putArray("testResults");
+        testResults.forEach(results::add);
+        return new MergedAnalysis(merged.toString(), failed == 0);
+    }
+}
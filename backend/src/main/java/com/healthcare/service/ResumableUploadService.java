@@ -0,0 +1,174 @@
+package com.healthcare.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.healthcare.model.UploadSession;
+import com.healthcare.model.User;
+import com.healthcare.repository.UploadSessionRepository;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Offset-based resumable uploads. Clients create a session, then PATCH chunks at the
+ * current offset; each chunk is appended to a part file through a {@link FileChannel}.
+ * When the last byte arrives the part file is handed to the report or scan pipeline.
+ */
+@Service
+public class ResumableUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumableUploadService.class);
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final MedicalReportService medicalReportService;
+    private final MedicineScanService medicineScanService;
+
+    // Sessions currently receiving a chunk; a second concurrent PATCH is rejected
+    private final Set<String> activeWrites = ConcurrentHashMap.newKeySet();
+
+    @Value("${upload.resumable.directory:uploads/tmp}")
+    private String partDirectory;
+
+    @Value("${upload.resumable.max-length:209715200}")
+    private long maxLength;
+
+    @Value("${upload.resumable.expiry-hours:24}")
+    private long expiryHours;
+
+    public ResumableUploadService(UploadSessionRepository uploadSessionRepository, MedicalReportService medicalReportService,
+                                  MedicineScanService medicineScanService) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.medicalReportService = medicalReportService;
+        this.medicineScanService = medicineScanService;
+    }
+
+    public UploadSession createSession(String purpose, String owner, String fileName, String contentType, long length,
+                                       String reportType, LocalDate reportDate, String description) {
+        if (!UploadSession.PURPOSE_REPORT.equals(purpose) && !UploadSession.PURPOSE_MEDICINE_SCAN.equals(purpose)) {
+            throw new IllegalArgumentException("Unknown upload purpose: " + purpose);
+        }
+        if (length <= 0 || length > maxLength) {
+            throw new IllegalArgumentException("Upload length must be between 1 and " + maxLength + " bytes");
+        }
+        if (UploadSession.PURPOSE_REPORT.equals(purpose) && (reportType == null || reportDate == null)) {
+            throw new IllegalArgumentException("reportType and reportDate are required for report uploads");
+        }
+        UploadSession session = new UploadSession(purpose, owner, FileStorageService.sanitizeFileName(fileName), contentType, length);
+        session.setReportType(reportType);
+        session.setReportDate(reportDate);
+        session.setDescription(description);
+        return uploadSessionRepository.save(session);
+    }
+
+    public Optional<UploadSession> findSession(String sessionId) {
+        return uploadSessionRepository.findById(sessionId);
+    }
+
+    /**
+     * Appends a chunk that starts at {@code offset}, which must equal the bytes received so far.
+     *
+     * @throws IllegalStateException if the offset does not match or another chunk is being written
+     */
+    public UploadSession appendChunk(UploadSession session, long offset, InputStream body, long contentLength) throws IOException {
+        if (!UploadSession.STATUS_IN_PROGRESS.equals(session.getStatus())) {
+            throw new IllegalStateException("Upload is no longer accepting data");
+        }
+        if (offset != session.getOffset()) {
+            throw new IllegalStateException("Upload-Offset " + offset + " does not match current offset " + session.getOffset());
+        }
+        long remaining = session.getLength() - offset;
+        if (contentLength > remaining) {
+            throw new IllegalArgumentException("Chunk exceeds the declared upload length");
+        }
+        if (!activeWrites.add(session.getId())) {
+            throw new IllegalStateException("Another chunk is being written for this upload");
+        }
+        try {
+            Path partFile = partFile(session);
+            Files.createDirectories(partFile.getParent());
+            long written = 0;
+            try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 ReadableByteChannel source = Channels.newChannel(body)) {
+                // Drop anything past the acknowledged offset left by an interrupted chunk
+                channel.truncate(offset);
+                long transferred;
+                while (written < remaining && (transferred = channel.transferFrom(source, offset + written, remaining - written)) > 0) {
+                    written += transferred;
+                }
+                channel.force(false);
+            }
+            session.setOffset(offset + written);
+            session.setUpdatedAt(LocalDateTime.now());
+            return uploadSessionRepository.save(session);
+        } finally {
+            activeWrites.remove(session.getId());
+        }
+    }
+
+    /**
+     * Runs the report or scan pipeline on a fully received upload.
+     *
+     * @param patient the uploading user, required for report uploads
+     */
+    public Mono<Object> complete(UploadSession session, User patient) {
+        session.setStatus(UploadSession.STATUS_PROCESSING);
+        uploadSessionRepository.save(session);
+
+        Path partFile = partFile(session);
+        Mono<?> processing = UploadSession.PURPOSE_REPORT.equals(session.getPurpose())
+                ? medicalReportService.uploadAndExtractReport(partFile, session.getFileName(), session.getContentType(), patient,
+                        session.getReportType(), session.getReportDate(), session.getDescription())
+                    .doOnNext(report -> session.setResultId(report.getId()))
+                : medicineScanService.processMedicineScan(partFile, session.getFileName(), session.getContentType())
+                    .doOnNext(scan -> session.setResultId(scan.getId()));
+
+        return processing
+                .<Object>map(result -> result)
+                .doOnSuccess(result -> finish(session, UploadSession.STATUS_COMPLETED))
+                .doOnError(e -> {
+                    logger.error("Processing of upload {} failed: {}", session.getId(), e.getMessage());
+                    finish(session, UploadSession.STATUS_FAILED);
+                });
+    }
+
+    @Scheduled(fixedDelayString = "${upload.resumable.cleanup-interval-ms:3600000}")
+    public void removeExpiredSessions() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(expiryHours);
+        for (UploadSession session : uploadSessionRepository.findByStatusAndUpdatedAtBefore(UploadSession.STATUS_IN_PROGRESS, cutoff)) {
+            try {
+                Files.deleteIfExists(partFile(session));
+            } catch (IOException e) {
+                logger.warn("Could not delete part file of expired upload {}: {}", session.getId(), e.getMessage());
+            }
+            uploadSessionRepository.delete(session);
+        }
+    }
+
+    private void finish(UploadSession session, String status) {
+        session.setStatus(status);
+        session.setUpdatedAt(LocalDateTime.now());
+        uploadSessionRepository.save(session);
+    }
+
+    private Path partFile(UploadSession session) {
+        return Paths.get(partDirectory).toAbsolutePath().resolve(session.getId() + ".part");
+    }
+}
@@ -1,6 +1,7 @@
 package com.healthcare.service;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.time.Duration;
 
@@ -48,7 +49,10 @@ public class S3Service {
                 .contentType(file.getContentType())
                 .build();
 
-        s3Client.putObject(putObjectRequest, RequestBody.fromBytes(file.getBytes()));
+        // Stream the upload with a known length instead of reading it into a byte array
+        try (InputStream inputStream = file.getInputStream()) {
+            s3Client.putObject(putObjectRequest, RequestBody.fromInputStream(inputStream, file.getSize()));
+        }
 
         // Generate a presigned URL valid for 7 days
         GetObjectRequest getObjectRequest = GetObjectRequest.builder()
@@ -0,0 +1,457 @@
+package com.healthcare.service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.model.MedicineScan;
+import com.healthcare.model.ScanImageHash;
+import com.healthcare.repository.MedicineScanRepository;
+import com.healthcare.repository.ScanImageHashRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Maps medicine photos to an earlier scan result. Each image is keyed by the SHA-256 of its
+ * bytes and by a 64-bit difference hash (dHash). Keys are kept in memory and persisted to
+ * {@code scan_image_hashes}, so they survive restarts and are shared between instances.
+ * Entries expire after a configurable TTL, both in memory and in Mongo.
+ * <p>
+ * Only a byte-identical upload is reused as-is. A 9x8 hash cannot tell sibling packs of one
+ * manufacturer apart, such as two strengths of one brand, even when the hashes are equal, so
+ * every perceptual match is a candidate that {@link #confirm} checks against the new photo's
+ * OCR text before it may be reused. Perceptual lookups use multi-index hashing: the hash is
+ * split into {@code max-distance + 1} segments, and any hash within that distance agrees with
+ * the query on at least one whole segment, so only hashes sharing a segment are compared.
+ */
+@Service
+public class ScanResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanResultCache.class);
+
+    // dHash compares each pixel with its right neighbour on a 9x8 grayscale thumbnail
+    private static final int HASH_WIDTH = 9;
+    private static final int HASH_HEIGHT = 8;
+    // Images are decoded subsampled to roughly this width before hashing
+    private static final int DECODE_WIDTH = 128;
+
+    private static final Pattern TOKEN = Pattern.compile("[a-z]{3,}|\\d+(?:\\.\\d+)?");
+
+    private record CachedScan(String medicineScanId, String contentHash, LocalDateTime createdAt) {}
+
+    /**
+     * The keys of one image.
+     *
+     * @param contentHash    hex SHA-256 of the image bytes
+     * @param perceptualHash dHash of the image
+     */
+    public record ImageKey(String contentHash, long perceptualHash) {}
+
+    /**
+     * An earlier scan found for an image.
+     *
+     * @param distance  Hamming distance between the perceptual hashes
+     * @param identical whether the earlier image had the same bytes; only then may the scan be
+     *                  reused without {@link #confirm}
+     */
+    public record Match(MedicineScan scan, int distance, boolean identical) {}
+
+    private final ScanImageHashRepository scanImageHashRepository;
+    private final MedicineScanRepository medicineScanRepository;
+    private final MongoTemplate mongoTemplate;
+    private final FileStorageService fileStorageService;
+    // Keyed by perceptual hash, the one the TTL and size bounds apply to
+    private final Map<Long, CachedScan> entries = new ConcurrentHashMap<>();
+    private final Map<String, Long> byContentHash = new ConcurrentHashMap<>();
+    private HammingIndex hammingIndex;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter confirmedCounter;
+    private final Counter rejectedCounter;
+
+    private volatile LocalDateTime lastSync = LocalDateTime.MIN;
+
+    @Value("${medicine.scan.hash-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${medicine.scan.hash-cache.max-distance:2}")
+    private int maxDistance;
+
+    // Token overlap a candidate's OCR text needs with the new photo's; numbers must match exactly
+    @Value("${medicine.scan.hash-cache.min-text-similarity:0.8}")
+    private double minTextSimilarity;
+
+    @Value("${medicine.scan.hash-cache.ttl:7d}")
+    private Duration ttl;
+
+    @Value("${medicine.scan.hash-cache.max-entries:50000}")
+    private int maxEntries;
+
+    public ScanResultCache(ScanImageHashRepository scanImageHashRepository, MedicineScanRepository medicineScanRepository,
+                           MongoTemplate mongoTemplate, FileStorageService fileStorageService, MeterRegistry meterRegistry) {
+        this.scanImageHashRepository = scanImageHashRepository;
+        this.medicineScanRepository = medicineScanRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.fileStorageService = fileStorageService;
+        this.hitCounter = Counter.builder("medicine.scan.hash-cache.lookups").tag("result", "hit").register(meterRegistry);
+        this.missCounter = Counter.builder("medicine.scan.hash-cache.lookups").tag("result", "miss").register(meterRegistry);
+        this.confirmedCounter = Counter.builder("medicine.scan.hash-cache.lookups").tag("result", "confirmed").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("medicine.scan.hash-cache.lookups").tag("result", "rejected").register(meterRegistry);
+        Gauge.builder("medicine.scan.hash-cache.size", entries, Map::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void createIndex() {
+        hammingIndex = new HammingIndex(Math.max(0, Math.min(maxDistance, 63)) + 1);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            mongoTemplate.indexOps(ScanImageHash.class)
+                    .ensureIndex(new Index().on("createdAt", Sort.Direction.ASC).named("created_at_ttl").expire(ttl));
+        } catch (RuntimeException e) {
+            // An existing index with a different TTL has to be dropped by hand
+            logger.warn("Could not ensure TTL index on scan_image_hashes: {}", e.getMessage());
+        }
+        sync();
+    }
+
+    /**
+     * Pulls hashes recorded since the last sync (including those written by other
+     * instances) and drops expired entries from memory.
+     */
+    @Scheduled(initialDelayString = "${medicine.scan.hash-cache.sync-interval-ms:60000}", fixedDelayString = "${medicine.scan.hash-cache.sync-interval-ms:60000}")
+    public void sync() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime oldestLive = LocalDateTime.now().minus(ttl);
+        try {
+            LocalDateTime since = lastSync.isAfter(oldestLive) ? lastSync : oldestLive;
+            for (ScanImageHash stored : scanImageHashRepository.findByCreatedAtAfterOrderByCreatedAtAsc(since)) {
+                remember(stored.getHash(), new CachedScan(stored.getMedicineScanId(), stored.getContentHash(), stored.getCreatedAt()));
+                lastSync = stored.getCreatedAt();
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not sync scan hash cache: {}", e.getMessage());
+        }
+        evict(oldestLive);
+    }
+
+    /**
+     * Computes the content and perceptual hashes of an image file.
+     *
+     * @throws IOException if the file cannot be read or decoded
+     */
+    public ImageKey fingerprint(File imageFile) throws IOException {
+        return new ImageKey(fileStorageService.contentHash(imageFile.toPath()), dHash(readSubsampled(imageFile)));
+    }
+
+    /**
+     * Returns the earlier scan of a byte-identical image if there is one, otherwise the scan
+     * whose perceptual hash is closest, if one lies within the configured Hamming distance.
+     * Only an {@link Match#identical()} match may be reused directly; any other must pass
+     * {@link #confirm} first.
+     */
+    public Optional<Match> find(ImageKey key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        LocalDateTime oldestLive = LocalDateTime.now().minus(ttl);
+        Long identicalHash = key.contentHash() == null ? null : byContentHash.get(key.contentHash());
+        CachedScan identical = identicalHash == null ? null : entries.get(identicalHash);
+        if (identical != null && key.contentHash().equals(identical.contentHash()) && identical.createdAt().isAfter(oldestLive)) {
+            Optional<MedicineScan> scan = loadScan(identical.medicineScanId());
+            if (scan.isPresent()) {
+                hitCounter.increment();
+                return Optional.of(new Match(scan.get(), Long.bitCount(identicalHash ^ key.perceptualHash()), true));
+            }
+        }
+
+        String bestScanId = null;
+        int bestDistance = maxDistance + 1;
+        for (long candidate : hammingIndex.candidates(key.perceptualHash())) {
+            int distance = Long.bitCount(candidate ^ key.perceptualHash());
+            CachedScan cached = entries.get(candidate);
+            if (distance < bestDistance && cached != null && cached.createdAt().isAfter(oldestLive)) {
+                bestDistance = distance;
+                bestScanId = cached.medicineScanId();
+            }
+        }
+        Optional<MedicineScan> scan = bestScanId == null ? Optional.empty() : loadScan(bestScanId);
+        if (scan.isEmpty()) {
+            missCounter.increment();
+            return Optional.empty();
+        }
+        logger.debug("Found candidate medicine scan {} for image hash {} (distance {})", bestScanId,
+                Long.toHexString(key.perceptualHash()), bestDistance);
+        return Optional.of(new Match(scan.get(), bestDistance, false));
+    }
+
+    private Optional<MedicineScan> loadScan(String medicineScanId) {
+        Optional<MedicineScan> scan = medicineScanRepository.findById(medicineScanId);
+        if (scan.isEmpty()) {
+            // The scan was deleted; forget every hash that points at it
+            entries.entrySet().stream()
+                    .filter(entry -> entry.getValue().medicineScanId().equals(medicineScanId))
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(this::forget);
+            scanImageHashRepository.deleteByMedicineScanId(medicineScanId);
+        }
+        return scan;
+    }
+
+    /**
+     * Decides whether a candidate match may be reused for a photo whose OCR produced
+     * {@code extractedText}: both texts must contain the same numbers (strengths, pack sizes)
+     * and share at least {@code min-text-similarity} of their words.
+     */
+    public boolean confirm(Match match, String extractedText) {
+        Set<String> candidate = tokens(match.scan().getExtractedText());
+        Set<String> current = tokens(extractedText);
+        boolean confirmed = !candidate.isEmpty() && numbers(candidate).equals(numbers(current))
+                && jaccard(candidate, current) >= minTextSimilarity;
+        (confirmed ? confirmedCounter : rejectedCounter).increment();
+        if (!confirmed) {
+            logger.debug("Rejected candidate scan {} (distance {}): OCR text differs", match.scan().getId(), match.distance());
+        }
+        return confirmed;
+    }
+
+    private static Set<String> tokens(String text) {
+        Set<String> tokens = new HashSet<>();
+        if (text != null) {
+            Matcher matcher = TOKEN.matcher(text.toLowerCase(Locale.ROOT));
+            while (matcher.find()) {
+                tokens.add(matcher.group());
+            }
+        }
+        return tokens;
+    }
+
+    private static Set<String> numbers(Set<String> tokens) {
+        Set<String> numbers = new HashSet<>();
+        for (String token : tokens) {
+            if (Character.isDigit(token.charAt(0))) {
+                numbers.add(token);
+            }
+        }
+        return numbers;
+    }
+
+    private static double jaccard(Set<String> a, Set<String> b) {
+        if (a.isEmpty() && b.isEmpty()) {
+            return 1.0;
+        }
+        Set<String> union = new HashSet<>(a);
+        union.addAll(b);
+        long shared = a.stream().filter(b::contains).count();
+        return (double) shared / union.size();
+    }
+
+    /**
+     * Remembers the result of a completed scan. Failed scans, including error payloads and
+     * AI fallback messages, are not cached.
+     */
+    public void put(ImageKey key, MedicineScan medicineScan) {
+        if (!enabled || medicineScan.getId() == null || !isCacheable(medicineScan.getStructuredData())) {
+            return;
+        }
+        ScanImageHash stored = new ScanImageHash(key.perceptualHash(), key.contentHash(), medicineScan.getId());
+        remember(key.perceptualHash(), new CachedScan(stored.getMedicineScanId(), stored.getContentHash(), stored.getCreatedAt()));
+        try {
+            scanImageHashRepository.save(stored);
+        } catch (RuntimeException e) {
+            logger.warn("Could not persist scan image hash: {}", e.getMessage());
+        }
+        if (entries.size() > maxEntries) {
+            evictOldest(entries.size() - maxEntries);
+        }
+    }
+
+    // Only results that parse to a medicine are worth reusing; error payloads and AI fallback text are not
+    private boolean isCacheable(String structuredData) {
+        if (structuredData == null) {
+            return false;
+        }
+        try {
+            JsonNode result = objectMapper.readTree(structuredData);
+            return result != null && result.isObject() && !result.has("error")
+                    && !result.path("brandName").asText("").isBlank();
+        } catch (JsonProcessingException e) {
+            return false;
+        }
+    }
+
+    private void remember(long perceptualHash, CachedScan cached) {
+        CachedScan previous = entries.put(perceptualHash, cached);
+        if (previous == null) {
+            hammingIndex.add(perceptualHash);
+        } else if (previous.contentHash() != null) {
+            byContentHash.remove(previous.contentHash(), perceptualHash);
+        }
+        if (cached.contentHash() != null) {
+            byContentHash.put(cached.contentHash(), perceptualHash);
+        }
+    }
+
+    private void forget(long perceptualHash) {
+        CachedScan removed = entries.remove(perceptualHash);
+        if (removed != null) {
+            hammingIndex.remove(perceptualHash);
+            if (removed.contentHash() != null) {
+                byContentHash.remove(removed.contentHash(), perceptualHash);
+            }
+        }
+    }
+
+    private void evict(LocalDateTime oldestLive) {
+        entries.entrySet().stream()
+                .filter(entry -> !entry.getValue().createdAt().isAfter(oldestLive))
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(this::forget);
+    }
+
+    private void evictOldest(int count) {
+        entries.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue((a, b) -> a.createdAt().compareTo(b.createdAt())))
+                .limit(count)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(this::forget);
+    }
+
+    /**
+     * Multi-index hashing over 64-bit hashes: one table per segment maps a segment value to
+     * the hashes that have it.
+     */
+    static final class HammingIndex {
+
+        private final int segments;
+        private final List<Map<Long, Set<Long>>> tables = new ArrayList<>();
+
+        HammingIndex(int segments) {
+            this.segments = segments;
+            for (int i = 0; i < segments; i++) {
+                tables.add(new ConcurrentHashMap<>());
+            }
+        }
+
+        void add(long hash) {
+            for (int i = 0; i < segments; i++) {
+                tables.get(i).computeIfAbsent(segment(hash, i), key -> ConcurrentHashMap.newKeySet()).add(hash);
+            }
+        }
+
+        void remove(long hash) {
+            for (int i = 0; i < segments; i++) {
+                tables.get(i).computeIfPresent(segment(hash, i), (key, hashes) -> {
+                    hashes.remove(hash);
+                    return hashes.isEmpty() ? null : hashes;
+                });
+            }
+        }
+
+        // Every stored hash within segments - 1 bits of the query, plus some further away
+        Set<Long> candidates(long hash) {
+            Set<Long> candidates = new HashSet<>();
+            for (int i = 0; i < segments; i++) {
+                candidates.addAll(tables.get(i).getOrDefault(segment(hash, i), Set.of()));
+            }
+            return candidates;
+        }
+
+        private long segment(long hash, int index) {
+            int from = index * Long.SIZE / segments;
+            int to = (index + 1) * Long.SIZE / segments;
+            long mask = to - from == Long.SIZE ? -1L : (1L << (to - from)) - 1;
+            return (hash >>> from) & mask;
+        }
+    }
+
+    // Decodes only every n-th pixel, which is all a 9x8 hash needs
+    private static BufferedImage readSubsampled(File imageFile) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(imageFile)) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format: " + imageFile.getName());
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int step = Math.max(1, Math.min(reader.getWidth(0), reader.getHeight(0)) / DECODE_WIDTH);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    static long dHash(BufferedImage image) {
+        BufferedImage thumbnail = new BufferedImage(HASH_WIDTH, HASH_HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, HASH_WIDTH, HASH_HEIGHT, null);
+        } finally {
+            graphics.dispose();
+        }
+        int[] pixels = thumbnail.getRaster().getPixels(0, 0, HASH_WIDTH, HASH_HEIGHT, (int[]) null);
+        long hash = 0;
+        for (int y = 0; y < HASH_HEIGHT; y++) {
+            for (int x = 0; x < HASH_WIDTH - 1; x++) {
+                hash <<= 1;
+                if (pixels[y * HASH_WIDTH + x] < pixels[y * HASH_WIDTH + x + 1]) {
+                    hash |= 1;
+                }
+            }
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,221 @@
+package com.healthcare.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.healthcare.model.Medicine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bloom filter over the keys in the {@code medicines} collection (see {@link Medicine#keyOf}).
+ * A negative answer is trusted and the Mongo lookup is skipped. It can be stale in only one
+ * way: a medicine verified on another instance is missing until the next
+ * {@link #refreshRecent} pass, which runs every few seconds and reads only recently created
+ * medicines. Keys added on this instance are never lost, even during a full rebuild. Until
+ * the first load completes every key is reported as possibly present.
+ */
+@Service
+public class VerifiedMedicineFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerifiedMedicineFilter.class);
+
+    // ObjectIds carry the creating machine's clock, so each refresh re-reads a little of the previous window
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(1);
+
+    private final MongoTemplate mongoTemplate;
+    private final Counter absentCounter;
+    private final Counter maybePresentCounter;
+
+    private volatile BloomFilter filter;
+    // Keys added while a rebuild is reading Mongo, replayed into the rebuilt filter; guarded by this
+    private Set<String> addedDuringRebuild;
+    // Medicines created before this instant are in the filter
+    private volatile Instant loadedUpTo;
+
+    @Value("${medicine.verified-filter.expected-entries:100000}")
+    private int expectedEntries;
+
+    @Value("${medicine.verified-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    public VerifiedMedicineFilter(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.absentCounter = Counter.builder("medicine.verified_filter.lookups").tag("result", "absent")
+                .description("Verified-medicine lookups skipped because the key is not in the filter").register(meterRegistry);
+        this.maybePresentCounter = Counter.builder("medicine.verified_filter.lookups").tag("result", "maybe")
+                .description("Verified-medicine lookups that still had to query Mongo").register(meterRegistry);
+        Gauge.builder("medicine.verified_filter.entries", this, f -> f.filter == null ? 0 : f.filter.entries.get()).register(meterRegistry);
+        Gauge.builder("medicine.verified_filter.size", this, f -> f.filter == null ? 0 : f.filter.bitCount)
+                .baseUnit("bits").register(meterRegistry);
+        Gauge.builder("medicine.verified_filter.false_positive_rate", this, f -> f.filter == null ? 1.0 : f.filter.expectedFalsePositiveRate())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Rebuilds the filter from the {@code medicines} collection. Called once the medicine
+     * keys have been backfilled on startup and periodically afterwards, which drops keys of
+     * deleted medicines.
+     */
+    @Scheduled(initialDelayString = "${medicine.verified-filter.rebuild-interval-ms:3600000}", fixedDelayString = "${medicine.verified-filter.rebuild-interval-ms:3600000}")
+    public void reload() {
+        Instant started = Instant.now();
+        try {
+            Query query = Query.query(Criteria.where("medicineKey").exists(true));
+            query.fields().include("medicineKey");
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, 1), falsePositiveRate);
+            synchronized (this) {
+                addedDuringRebuild = new HashSet<>();
+            }
+            try {
+                mongoTemplate.stream(query, Medicine.class).forEach(medicine -> rebuilt.add(medicine.getMedicineKey()));
+                synchronized (this) {
+                    addedDuringRebuild.forEach(rebuilt::add);
+                    filter = rebuilt;
+                    loadedUpTo = started;
+                }
+            } finally {
+                synchronized (this) {
+                    addedDuringRebuild = null;
+                }
+            }
+            logger.info("Loaded {} verified medicine keys into membership filter ({} bits)", rebuilt.entries.get(), rebuilt.bitCount);
+        } catch (RuntimeException e) {
+            logger.warn("Could not load verified medicine filter: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Records a newly verified medicine key.
+     */
+    public synchronized void add(String medicineKey) {
+        if (filter != null) {
+            filter.add(medicineKey);
+        }
+        if (addedDuringRebuild != null) {
+            addedDuringRebuild.add(medicineKey);
+        }
+    }
+
+    /**
+     * Returns false only if the key is not in {@code medicines} as of the last refresh.
+     */
+    public boolean mightContain(String medicineKey) {
+        BloomFilter current = filter;
+        boolean maybe = current == null || current.mightContain(medicineKey);
+        (maybe ? maybePresentCounter : absentCounter).increment();
+        return maybe;
+    }
+
+    /**
+     * Adds the keys of medicines created since the last load or refresh, which includes those
+     * verified on other instances. New medicines get fresh ObjectIds, so the query is a short
+     * range scan on {@code _id}.
+     */
+    @Scheduled(initialDelayString = "${medicine.verified-filter.refresh-interval-ms:10000}", fixedDelayString = "${medicine.verified-filter.refresh-interval-ms:10000}")
+    public void refreshRecent() {
+        Instant since = loadedUpTo;
+        if (since == null) {
+            return;
+        }
+        Instant started = Instant.now();
+        try {
+            Query query = Query.query(Criteria.where("_id").gte(new ObjectId(Date.from(since.minus(REFRESH_OVERLAP))))
+                    .and("medicineKey").exists(true));
+            query.fields().include("medicineKey");
+            mongoTemplate.stream(query, Medicine.class).forEach(medicine -> add(medicine.getMedicineKey()));
+            synchronized (this) {
+                // A rebuild that finished meanwhile may already have moved the mark further
+                if (loadedUpTo == since) {
+                    loadedUpTo = started;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not refresh verified medicine filter: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Standard Bloom filter with k probes derived by double hashing from one 64-bit hash.
+     */
+    private static final class BloomFilter {
+
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+        private final AtomicLong entries = new AtomicLong();
+
+        BloomFilter(int expectedEntries, double falsePositiveRate) {
+            long optimalBits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bitCount = Math.max(64, (optimalBits + 63) / 64 * 64);
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedEntries * Math.log(2)));
+            this.bits = new AtomicLongArray((int) (bitCount / 64));
+        }
+
+        void add(String key) {
+            long hash = hash(key);
+            int low = (int) hash;
+            int high = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long index = Integer.toUnsignedLong(low + i * high) % bitCount;
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long current;
+                do {
+                    current = bits.get(word);
+                } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+            }
+            entries.incrementAndGet();
+        }
+
+        boolean mightContain(String key) {
+            long hash = hash(key);
+            int low = (int) hash;
+            int high = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long index = Integer.toUnsignedLong(low + i * high) % bitCount;
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double expectedFalsePositiveRate() {
+            return Math.pow(1 - Math.exp(-(double) hashCount * entries.get() / bitCount), hashCount);
+        }
+
+        // 64-bit FNV-1a followed by a murmur3 finaliser to spread the bits
+        private static long hash(String key) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b;
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb93fe66ba53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
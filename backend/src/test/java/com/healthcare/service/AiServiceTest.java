@@ -0,0 +1,102 @@
+package com.healthcare.service;
+
+import static com.healthcare.service.FakeGeminiTestSupport.CHAT_ANSWER_START;
+import static com.healthcare.service.FakeGeminiTestSupport.CHAT_PROMPT;
+import static com.healthcare.service.FakeGeminiTestSupport.TIMEOUT;
+import static com.healthcare.service.FakeGeminiTestSupport.ask;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.healthcare.controller.AiController;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+
+/**
+ * Runs {@link AiService} against {@link FakeGeminiServer} to check that identical calls are
+ * shared, and that streamed answers arrive in chunks and end with an {@code error} event when
+ * the stream breaks.
+ */
+class AiServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private FakeGeminiServer fakeGemini;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        fakeGemini = FakeGeminiTestSupport.fakeGemini();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fakeGemini.stop();
+    }
+
+    @Test
+    void identicalUncachedQueriesShareOneCallWithoutCachingIt() {
+        ReflectionTestUtils.setField(fakeGemini, "latencyMedian", Duration.ofMillis(300));
+        AiService aiService = aiService(resilience(100, 20, 100));
+
+        List<String> answers = Flux.merge(
+                aiService.queryAI(CHAT_PROMPT, "English", false),
+                aiService.queryAI(CHAT_PROMPT, "English", false),
+                aiService.queryAI(CHAT_PROMPT, "English", false))
+                .collectList().block(TIMEOUT);
+
+        assertThat(answers).hasSize(3).allMatch(answer -> answer.startsWith(CHAT_ANSWER_START));
+        assertThat(meterRegistry.get("ai.requests.coalesced").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("cache.size").tag("cache", "ai.responses").gauge().value()).isZero();
+    }
+
+    @Test
+    void streamedAnswerArrivesInChunks() {
+        AiService aiService = aiService(resilience(100, 20, 100));
+
+        List<String> chunks = aiService.streamAI(CHAT_PROMPT, "English", false).collectList().block(TIMEOUT);
+
+        assertThat(chunks).hasSize(8);
+        assertThat(String.join("", chunks)).startsWith(CHAT_ANSWER_START);
+    }
+
+    @Test
+    void streamCutOffMidwayEndsWithErrorEvent() {
+        ReflectionTestUtils.setField(fakeGemini, "dropRate", 1.0);
+        AiController controller = new AiController(aiService(resilience(100, 20, 100)));
+
+        List<ServerSentEvent<String>> events = controller.streamQuery(Map.of("message", CHAT_PROMPT))
+                .collectList().block(TIMEOUT);
+
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly("chunk", "chunk", "chunk", "chunk", "error");
+    }
+
+    @Test
+    void streamRejectedByRateLimiterEndsWithErrorEvent() {
+        AiService aiService = aiService(resilience(1, 20, 100));
+        AiController controller = new AiController(aiService);
+        assertThat(ask(aiService)).startsWith(CHAT_ANSWER_START);
+
+        List<ServerSentEvent<String>> events = controller.streamQuery(Map.of("message", CHAT_PROMPT))
+                .collectList().block(TIMEOUT);
+
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly("error");
+        assertThat(events.get(0).data()).isEqualTo(AiService.RATE_LIMITED);
+    }
+
+    private AiService aiService(GeminiResilience resilience) {
+        return FakeGeminiTestSupport.aiService(fakeGemini, meterRegistry, resilience);
+    }
+
+    private GeminiResilience resilience(int requestsPerMinute, int maxConcurrent, int breakerWindow) {
+        return FakeGeminiTestSupport.resilience(meterRegistry, requestsPerMinute, maxConcurrent, breakerWindow);
+    }
+}
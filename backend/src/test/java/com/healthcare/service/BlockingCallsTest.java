@@ -0,0 +1,177 @@
+package com.healthcare.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.healthcare.model.MedicalReport;
+import com.healthcare.model.MedicineScan;
+import com.healthcare.model.ReportContent;
+import com.healthcare.model.User;
+import com.healthcare.repository.MedicalReportRepository;
+import com.healthcare.repository.MedicineScanRepository;
+import com.healthcare.repository.ReportContentRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.blockhound.BlockingOperationError;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Drives the medicine scan and report pipelines under BlockHound, which blockhound-junit-platform
+ * installs for the whole test run. The AI answer arrives on a Reactor parallel thread, like a
+ * Netty event loop, and every blocking collaborator really blocks, so any stage that is not
+ * moved to a blocking scheduler fails the test.
+ */
+class BlockingCallsTest {
+
+    private static final String MEDICINE_JSON = "{\"brandName\": \"Dolo 650\", \"generic\": \"Paracetamol\"}";
+    private static final String REPORT_JSON = "{\"summary\": \"ok\", \"testResults\": []}";
+
+    @TempDir
+    Path tempDir;
+
+    private Scheduler fileIoScheduler;
+    private Scheduler ocrScheduler;
+    private Scheduler dbScheduler;
+    private AiService aiService;
+    private FileStore fileStore;
+    private OcrEnginePool ocrEnginePool;
+    private OcrImagePreprocessor ocrImagePreprocessor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fileIoScheduler = Schedulers.newBoundedElastic(4, 100, "test-file-io");
+        ocrScheduler = Schedulers.newBoundedElastic(4, 100, "test-ocr");
+        dbScheduler = Schedulers.newBoundedElastic(4, 100, "test-db");
+
+        aiService = mock(AiService.class);
+        fileStore = mock(FileStore.class);
+        when(fileStore.save(any(), anyString(), anyString(), any())).thenAnswer(call -> blocking("/uploads/test/" + call.getArgument(2)));
+        when(fileStore.retainsLocalFile()).thenReturn(true);
+        ocrEnginePool = mock(OcrEnginePool.class);
+        when(ocrEnginePool.recognize(any(BufferedImage.class))).thenAnswer(call -> blocking("Dolo 650 Paracetamol Tablets IP"));
+        ocrImagePreprocessor = mock(OcrImagePreprocessor.class);
+        when(ocrImagePreprocessor.load(any())).thenAnswer(call -> blocking(new BufferedImage(8, 8, BufferedImage.TYPE_BYTE_GRAY)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fileIoScheduler.dispose();
+        ocrScheduler.dispose();
+        dbScheduler.dispose();
+    }
+
+    @Test
+    void medicineScanRunsBlockingStagesOffNonBlockingThreads() throws Exception {
+        when(aiService.queryAI(anyString(), anyString())).thenReturn(answerFromEventLoop(MEDICINE_JSON));
+
+        MedicineScan scan = newMedicineScanService().processMedicineScan(upload("pack.jpg"), "pack.jpg", "image/jpeg")
+                .block(Duration.ofSeconds(10));
+
+        assertThat(scan).isNotNull();
+        assertThat(scan.getStructuredData()).contains("Dolo 650");
+    }
+
+    @Test
+    void reportUploadRunsBlockingStagesOffNonBlockingThreads() throws Exception {
+        when(aiService.queryAI(anyString(), anyString(), anyBoolean())).thenReturn(answerFromEventLoop(REPORT_JSON));
+
+        User patient = new User("patient@example.com", "hash", "PATIENT", "Test Patient");
+        patient.setId("patient-1");
+        MedicalReport report = newMedicalReportService()
+                .uploadAndExtractReport(upload("report.png"), "report.png", "image/png", patient, "Blood", LocalDate.now(), "")
+                .block(Duration.ofSeconds(10));
+
+        assertThat(report).isNotNull();
+        assertThat(report.getExtractedData()).isEqualTo(REPORT_JSON);
+    }
+
+    @Test
+    void blockingOnAnEventLoopThreadIsDetected() {
+        // Guards the test itself: without BlockHound the other tests would pass vacuously
+        Mono<String> blockingAfterAnswer = answerFromEventLoop("x").map(BlockingCallsTest::blocking);
+
+        assertThatThrownBy(() -> blockingAfterAnswer.block(Duration.ofSeconds(10)))
+                .hasCauseInstanceOf(BlockingOperationError.class);
+    }
+
+    private MedicineScanService newMedicineScanService() throws Exception {
+        MedicineScanRepository repository = mock(MedicineScanRepository.class);
+        when(repository.save(any())).thenAnswer(call -> blocking(call.getArgument(0)));
+        MedicineCatalogIndex catalogIndex = mock(MedicineCatalogIndex.class);
+        when(catalogIndex.match(anyString())).thenReturn(Optional.empty());
+        ScanResultCache scanResultCache = mock(ScanResultCache.class);
+        when(scanResultCache.fingerprint(any())).thenAnswer(call -> blocking(new ScanResultCache.ImageKey("0f", 0L)));
+        when(scanResultCache.find(any(ScanResultCache.ImageKey.class))).thenAnswer(call -> blocking(Optional.empty()));
+
+        MedicineScanService service = new MedicineScanService(repository, mock(MongoTemplate.class), aiService, new FileStorageService(),
+                fileStore, ocrEnginePool, ocrImagePreprocessor, catalogIndex, scanResultCache, new SimpleMeterRegistry(),
+                fileIoScheduler, ocrScheduler, dbScheduler);
+        ReflectionTestUtils.setField(service, "imageStoragePath", "target/test-medicine-images");
+        return service;
+    }
+
+    private MedicalReportService newMedicalReportService() {
+        MedicalReportRepository reportRepository = mock(MedicalReportRepository.class);
+        when(reportRepository.save(any())).thenAnswer(call -> blocking(call.getArgument(0)));
+        ReportContentRepository contentRepository = mock(ReportContentRepository.class);
+        when(contentRepository.findById(anyString())).thenAnswer(call -> blocking(Optional.<ReportContent>empty()));
+        when(contentRepository.save(any())).thenAnswer(call -> blocking(call.getArgument(0)));
+        LabResultService labResultService = mock(LabResultService.class);
+        doAnswer(call -> blocking(List.of())).when(labResultService).recordResults(any());
+        LabReportTemplateParser templateParser = mock(LabReportTemplateParser.class);
+        when(templateParser.parse(anyString())).thenReturn(Optional.empty());
+        ReportChunker reportChunker = new ReportChunker();
+        ReflectionTestUtils.setField(reportChunker, "maxChunkChars", 12000);
+
+        MedicalReportService service = new MedicalReportService(reportRepository, aiService, new FileStorageService(), contentRepository,
+                mock(PdfTextExtractor.class), labResultService, mock(MongoTemplate.class), fileStore, ocrEnginePool, ocrImagePreprocessor,
+                fileIoScheduler, ocrScheduler, dbScheduler, reportChunker, templateParser);
+        ReflectionTestUtils.setField(service, "reportStoragePath", "target/test-reports");
+        ReflectionTestUtils.setField(service, "chunkConcurrency", 4);
+        return service;
+    }
+
+    private Path upload(String name) throws Exception {
+        Path file = tempDir.resolve(name);
+        Files.write(file, new byte[] {1, 2, 3, 4});
+        return file;
+    }
+
+    // Emits on a Reactor parallel thread, which BlockHound treats as non-blocking
+    private static Mono<String> answerFromEventLoop(String answer) {
+        return Mono.just(answer).delayElement(Duration.ofMillis(5));
+    }
+
+    // Stands in for a repository, file or OCR call; Thread.sleep is reported by BlockHound
+    private static <T> T blocking(T result) {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,71 @@
+package com.healthcare.service;
+
+import static com.healthcare.service.FakeGeminiTestSupport.CHAT_ANSWER_START;
+import static com.healthcare.service.FakeGeminiTestSupport.CHAT_PROMPT;
+import static com.healthcare.service.FakeGeminiTestSupport.TIMEOUT;
+import static com.healthcare.service.FakeGeminiTestSupport.UPSTREAM_ERROR;
+import static com.healthcare.service.FakeGeminiTestSupport.ask;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+
+/**
+ * Checks that the error and throttle rates of {@link FakeGeminiServer} produce the failures
+ * {@link AiService} maps to its fallbacks.
+ */
+class FakeGeminiServerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private FakeGeminiServer fakeGemini;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        fakeGemini = FakeGeminiTestSupport.fakeGemini();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fakeGemini.stop();
+    }
+
+    @Test
+    void upstreamThrottlingIsReportedAsRateLimited() {
+        ReflectionTestUtils.setField(fakeGemini, "throttleRate", 1.0);
+        AiService aiService = aiService();
+
+        assertThat(ask(aiService)).isEqualTo(AiService.RATE_LIMITED);
+    }
+
+    @Test
+    void mixedErrorAndThrottleRatesEachGetTheirFallback() {
+        ReflectionTestUtils.setField(fakeGemini, "errorRate", 0.3);
+        ReflectionTestUtils.setField(fakeGemini, "throttleRate", 0.3);
+        AiService aiService = aiService();
+
+        Map<String, Long> answers = Flux.range(0, 30)
+                .concatMap(i -> aiService.queryAI(CHAT_PROMPT, "English", false))
+                .map(answer -> answer.startsWith(CHAT_ANSWER_START) ? "answer" : answer)
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()))
+                .block(TIMEOUT);
+
+        assertThat(answers).containsOnlyKeys("answer", UPSTREAM_ERROR, AiService.RATE_LIMITED);
+        assertThat(answers.values()).allMatch(count -> count > 0);
+    }
+
+    // Limits loose enough that every failure comes from the server
+    private AiService aiService() {
+        return FakeGeminiTestSupport.aiService(fakeGemini, meterRegistry,
+                FakeGeminiTestSupport.resilience(meterRegistry, 100, 20, 100));
+    }
+}
@@ -0,0 +1,57 @@
+package com.healthcare.service;
+
+import java.time.Duration;
+
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Wiring shared by the tests that run {@link AiService} against {@link FakeGeminiServer}.
+ */
+final class FakeGeminiTestSupport {
+
+    static final String CHAT_PROMPT = "What should I do about a mild fever?";
+    static final String CHAT_ANSWER_START = "This is a simulated answer";
+    static final String UPSTREAM_ERROR = "Sorry, there was an error communicating with the AI service. Status: 500 INTERNAL_SERVER_ERROR";
+    static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private FakeGeminiTestSupport() {}
+
+    // A fast, error-free server on a free port; tests adjust the fields before starting it
+    static FakeGeminiServer fakeGemini() {
+        FakeGeminiServer fakeGemini = new FakeGeminiServer();
+        ReflectionTestUtils.setField(fakeGemini, "port", 0);
+        ReflectionTestUtils.setField(fakeGemini, "latencyDistribution", "fixed");
+        ReflectionTestUtils.setField(fakeGemini, "latencyMedian", Duration.ofMillis(5));
+        ReflectionTestUtils.setField(fakeGemini, "latencySigma", 0.5);
+        ReflectionTestUtils.setField(fakeGemini, "latencyMax", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(fakeGemini, "streamChunks", 8);
+        ReflectionTestUtils.setField(fakeGemini, "chunkDelay", Duration.ofMillis(5));
+        ReflectionTestUtils.setField(fakeGemini, "seed", 42L);
+        return fakeGemini;
+    }
+
+    // Starts the fake server with the fields set so far and points a new AiService at it
+    static AiService aiService(FakeGeminiServer fakeGemini, MeterRegistry meterRegistry, GeminiResilience resilience) {
+        fakeGemini.start();
+        AiService aiService = new AiService(WebClient.builder(), meterRegistry, resilience, 1 << 20, 100, Duration.ofMinutes(5));
+        String baseUrl = "http://localhost:" + fakeGemini.port() + "/v1beta/models/fake-gemini";
+        ReflectionTestUtils.setField(aiService, "geminiApiKey", "fake-key");
+        ReflectionTestUtils.setField(aiService, "geminiApiUrl", baseUrl + ":generateContent");
+        ReflectionTestUtils.setField(aiService, "geminiStreamUrl", "");
+        return aiService;
+    }
+
+    static GeminiResilience resilience(MeterRegistry meterRegistry, int requestsPerMinute, int maxConcurrent, int breakerWindow) {
+        return new GeminiResilience(meterRegistry, requestsPerMinute, Duration.ofMinutes(1), Duration.ZERO,
+                maxConcurrent, Duration.ZERO, Duration.ofSeconds(5), 50, Duration.ofSeconds(5),
+                breakerWindow, breakerWindow, Duration.ofMinutes(1));
+    }
+
+    // An uncached chat question, so every call reaches the server
+    static String ask(AiService aiService) {
+        return aiService.queryAI(CHAT_PROMPT, "English", false).block(TIMEOUT);
+    }
+}
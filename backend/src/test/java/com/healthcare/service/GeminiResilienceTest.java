@@ -0,0 +1,86 @@
+package com.healthcare.service;
+
+import static com.healthcare.service.FakeGeminiTestSupport.CHAT_ANSWER_START;
+import static com.healthcare.service.FakeGeminiTestSupport.CHAT_PROMPT;
+import static com.healthcare.service.FakeGeminiTestSupport.TIMEOUT;
+import static com.healthcare.service.FakeGeminiTestSupport.UPSTREAM_ERROR;
+import static com.healthcare.service.FakeGeminiTestSupport.ask;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+
+/**
+ * Checks that the rate limiter, bulkhead and circuit breaker around the Gemini client reject
+ * calls with the right fallback, running {@link AiService} against {@link FakeGeminiServer}.
+ */
+class GeminiResilienceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private FakeGeminiServer fakeGemini;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        fakeGemini = FakeGeminiTestSupport.fakeGemini();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fakeGemini.stop();
+    }
+
+    @Test
+    void circuitBreakerOpensAfterUpstreamErrors() {
+        ReflectionTestUtils.setField(fakeGemini, "errorRate", 1.0);
+        AiService aiService = aiService(resilience(100, 20, 4));
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(ask(aiService)).isEqualTo(UPSTREAM_ERROR);
+        }
+
+        assertThat(ask(aiService)).isEqualTo(AiService.UNAVAILABLE);
+        assertThat(meterRegistry.get("resilience4j.circuitbreaker.state").tag("state", "open").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void localRateLimiterRejectsCallsOverTheQuota() {
+        AiService aiService = aiService(resilience(2, 20, 100));
+
+        assertThat(ask(aiService)).startsWith(CHAT_ANSWER_START);
+        assertThat(ask(aiService)).startsWith(CHAT_ANSWER_START);
+        assertThat(ask(aiService)).isEqualTo(AiService.RATE_LIMITED);
+    }
+
+    @Test
+    void bulkheadRejectsCallsOverTheConcurrencyLimit() {
+        ReflectionTestUtils.setField(fakeGemini, "latencyMedian", Duration.ofMillis(300));
+        AiService aiService = aiService(resilience(100, 1, 100));
+
+        // Different prompts, so the second call cannot join the first
+        List<String> answers = Flux.merge(
+                aiService.queryAI(CHAT_PROMPT, "English", false),
+                aiService.queryAI(CHAT_PROMPT + " I am 30 years old.", "English", false))
+                .collectList().block(TIMEOUT);
+
+        assertThat(answers).hasSize(2);
+        assertThat(answers).filteredOn(answer -> answer.startsWith(CHAT_ANSWER_START)).hasSize(1);
+        assertThat(answers).filteredOn(AiService.UNAVAILABLE::equals).hasSize(1);
+    }
+
+    private AiService aiService(GeminiResilience resilience) {
+        return FakeGeminiTestSupport.aiService(fakeGemini, meterRegistry, resilience);
+    }
+
+    private GeminiResilience resilience(int requestsPerMinute, int maxConcurrent, int breakerWindow) {
+        return FakeGeminiTestSupport.resilience(meterRegistry, requestsPerMinute, maxConcurrent, breakerWindow);
+    }
+}
@@ -0,0 +1,114 @@
+package com.healthcare.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.healthcare.model.Medicine;
+import com.healthcare.model.User;
+import com.healthcare.repository.MedicineRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Checks the alerts the engine raises against a catalogue the size of a production one. The
+ * time of a check is measured by {@code InteractionEngineBenchmark} in {@code src/jmh/java}.
+ */
+class InteractionEngineTest {
+
+    private static final int CATALOGUE_SIZE = 5000;
+
+    private SimpleMeterRegistry meterRegistry;
+    private InteractionEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        List<Medicine> catalogue = new ArrayList<>();
+        catalogue.add(medicine("m-dolo", "Dolo 650", "Paracetamol 650mg", "[\"Avoid alcohol.\", \"Do not take with warfarin; it raises the bleeding risk.\"]"));
+        catalogue.add(medicine("m-warf", "Warf 5", "Warfarin", "[\"Avoid aspirin.\"]"));
+        catalogue.add(medicine("m-ecosprin", "Ecosprin 75", "Aspirin", "[\"Not for children under 16.\"]"));
+        catalogue.add(medicine("m-augmentin", "Augmentin 625", "Amoxicillin + Clavulanic Acid", "[\"Tell your doctor about a penicillin allergy.\"]"));
+        catalogue.add(medicine("m-calpol", "Calpol", "Paracetamol", "[]"));
+        for (int i = 0; i < CATALOGUE_SIZE; i++) {
+            catalogue.add(medicine("m-" + i, "Brand" + i, "Ingredient" + i + " + Ingredient" + (i + 1),
+                    "[\"Do not combine with ingredient" + (i + 7) + ".\", \"Store below 25 degrees.\"]"));
+        }
+        MedicineRepository repository = mock(MedicineRepository.class);
+        when(repository.findByVerifiedTrue()).thenReturn(catalogue);
+
+        meterRegistry = new SimpleMeterRegistry();
+        engine = new InteractionEngine(repository, meterRegistry);
+        engine.refresh();
+    }
+
+    @Test
+    void reportsAllergyToAnIngredient() {
+        InteractionEngine.CheckResult result = engine.check(patient("Penicillin, amoxicillin", "none"),
+                engine.profileOf("m-augmentin").orElseThrow());
+
+        assertThat(result.alerts()).extracting(InteractionEngine.Alert::type).contains(InteractionEngine.ALLERGY);
+        assertThat(result.alerts()).extracting(InteractionEngine.Alert::term).contains("amoxicillin", "penicillin");
+    }
+
+    @Test
+    void reportsInteractionNamedInEitherMedicinesWarnings() {
+        // Dolo's warnings name warfarin; Ecosprin's do not name warfarin, but Warf's name aspirin
+        InteractionEngine.CheckResult dolo = engine.check(patient(null, "Warf 5 once daily"), engine.profileOf("m-dolo").orElseThrow());
+        InteractionEngine.CheckResult ecosprin = engine.check(patient(null, "warfarin"), engine.profileOf("m-ecosprin").orElseThrow());
+
+        assertThat(dolo.alerts()).extracting(InteractionEngine.Alert::type).containsExactly(InteractionEngine.INTERACTION);
+        assertThat(ecosprin.alerts()).extracting(InteractionEngine.Alert::type).containsExactly(InteractionEngine.INTERACTION);
+    }
+
+    @Test
+    void reportsDuplicateTherapyForAScannedMedicine() {
+        // An unverified scan result resolves its ingredients through the known brand name
+        InteractionEngine.MedicineProfile scanned = engine.profileOf("Calpol", null, null);
+
+        InteractionEngine.CheckResult result = engine.check(patient("no known allergies", "Dolo 650 for fever"), scanned);
+
+        assertThat(result.alerts()).extracting(InteractionEngine.Alert::type).containsExactly(InteractionEngine.DUPLICATE_THERAPY);
+    }
+
+    @Test
+    void reportsNothingForAnUnrelatedPatient() {
+        InteractionEngine.CheckResult result = engine.check(patient("nkda", "Brand42"), engine.profileOf("m-dolo").orElseThrow());
+
+        assertThat(result.alerts()).isEmpty();
+    }
+
+    @Test
+    void checksAgainstALargeCatalogueAreTimed() {
+        User patient = patient("Penicillin, sulfa drugs, Ingredient12",
+                "Warf 5, Brand100, Brand2000 and metformin 500mg twice daily, Brand4998");
+
+        InteractionEngine.CheckResult result = engine.check(patient, engine.profileOf("m-11").orElseThrow());
+
+        // m-11 is Ingredient11 + Ingredient12
+        assertThat(result.alerts()).extracting(InteractionEngine.Alert::type).containsExactly(InteractionEngine.ALLERGY);
+        assertThat(meterRegistry.get("interaction.check").timer().count()).isEqualTo(1);
+    }
+
+    private static Medicine medicine(String id, String brandName, String generic, String warnings) {
+        Medicine medicine = new Medicine();
+        medicine.setId(id);
+        medicine.setBrandName(brandName);
+        medicine.setGeneric(generic);
+        medicine.setWarnings(warnings);
+        medicine.setVerified(true);
+        return medicine;
+    }
+
+    private static User patient(String allergies, String currentMedications) {
+        User patient = new User("patient@example.com", "hash", "PATIENT", "Test Patient");
+        patient.setAllergies(allergies);
+        patient.setCurrentMedications(currentMedications);
+        return patient;
+    }
+}
@@ -0,0 +1,171 @@
+package com.healthcare.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Runs the bundled lab templates against report text laid out like each lab's printout.
+ */
+class LabReportTemplateParserTest {
+
+    private static final String LAL_PATH_LABS = """
+            Dr Lal PathLabs Ltd
+            Name : Mr. Test Patient        Age : 45 Years        Lab No : 123456789
+            Test Name                 Results      Units       Bio. Ref. Interval
+            Hemoglobin                13.2         g/dL        13.0 - 17.0
+            Total Leukocyte Count     11.8 H       thou/mm3    4.0 - 10.0
+            Platelet Count            150          thou/mm3    150 - 410
+            Glucose Fasting           88           mg/dL       70 - 100
+            """;
+
+    private static final String METROPOLIS = """
+            Metropolis Healthcare Ltd
+            Investigation          Observed Value   Unit     Biological Reference Interval
+            Haemoglobin            11.2 L           g/dL     12.0 - 15.0
+            Serum Creatinine       0.8              mg/dL    0.6 - 1.1
+            Vitamin B12            180              pg/mL    211 - 911
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private LabReportTemplateParser parser;
+
+    @BeforeEach
+    void setUp() {
+        parser = new LabReportTemplateParser(new DefaultResourceLoader(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(parser, "templatesLocation", "classpath:lab-templates.json");
+        ReflectionTestUtils.setField(parser, "enabled", true);
+        parser.loadTemplates();
+    }
+
+    @Test
+    void readsLalPathLabsRowsWithFlags() throws Exception {
+        JsonNode analysis = parse(LAL_PATH_LABS);
+
+        assertThat(analysis.path("parsedBy").asText()).isEqualTo("template:Dr Lal PathLabs");
+        assertThat(analysis.path("testResults")).extracting(row -> row.path("testName").asText() + "=" + row.path("status").asText())
+                .containsExactly("Hemoglobin=normal", "Total Leukocyte Count=high", "Platelet Count=normal", "Glucose Fasting=normal");
+        assertThat(analysis.path("testResults").path(1).path("unit").asText()).isEqualTo("thou/mm3");
+    }
+
+    @Test
+    void readsMetropolisRowsAndDerivesStatusFromTheRange() throws Exception {
+        JsonNode analysis = parse(METROPOLIS);
+
+        assertThat(analysis.path("parsedBy").asText()).isEqualTo("template:Metropolis");
+        assertThat(analysis.path("testResults")).extracting(row -> row.path("testName").asText() + "=" + row.path("status").asText())
+                .containsExactly("Haemoglobin=low", "Serum Creatinine=normal", "Vitamin B12=low");
+    }
+
+    @Test
+    void readsThyrocareColumnsOnlyBelowTheHeader() throws Exception {
+        // The collection-centre line has a number where the value column is
+        String report = String.join("\n",
+                "THYROCARE TECHNOLOGIES LTD",
+                thyrocareRow("SAMPLE COLLECTED AT", "", "110001", "", ""),
+                thyrocareRow("TEST NAME", "TECHNOLOGY", "VALUE", "UNITS", "REFERENCE RANGE"),
+                thyrocareRow("TOTAL TRIIODOTHYRONINE (T3)", "C.L.I.A", "112", "ng/dL", "60-200"),
+                thyrocareRow("TOTAL THYROXINE (T4)", "C.L.I.A", "13.9", "ug/dL", "4.5-12"),
+                thyrocareRow("THYROID STIMULATING HORMONE (TSH)", "C.L.I.A", "0.21", "uIU/mL", "0.3-5.5"),
+                "");
+
+        JsonNode analysis = parse(report);
+
+        assertThat(analysis.path("parsedBy").asText()).isEqualTo("template:Thyrocare");
+        assertThat(analysis.path("testResults")).extracting(row -> row.path("testName").asText() + "=" + row.path("status").asText())
+                .containsExactly("TOTAL TRIIODOTHYRONINE (T3)=normal", "TOTAL THYROXINE (T4)=high", "THYROID STIMULATING HORMONE (TSH)=low");
+    }
+
+    @Test
+    void stopsThyrocareTablesAtFootersAndReadsTheNextPage() throws Exception {
+        // Footer lines carry numbers where the value column is
+        String report = String.join("\n",
+                "THYROCARE TECHNOLOGIES LTD",
+                thyrocareRow("TEST NAME", "TECHNOLOGY", "VALUE", "UNITS", "REFERENCE RANGE"),
+                thyrocareRow("TOTAL TRIIODOTHYRONINE (T3)", "C.L.I.A", "112", "ng/dL", "60-200"),
+                thyrocareRow("TOTAL THYROXINE (T4)", "C.L.I.A", "13.9", "ug/dL", "4.5-12"),
+                thyrocareRow("REGISTRATION NO", "", "20481234", "", ""),
+                thyrocareRow("Page 1 of 2", "", "1", "", ""),
+                "THYROCARE TECHNOLOGIES LTD",
+                thyrocareRow("TEST NAME", "TECHNOLOGY", "VALUE", "UNITS", "REFERENCE RANGE"),
+                thyrocareRow("THYROID STIMULATING HORMONE (TSH)", "C.L.I.A", "0.21", "uIU/mL", "0.3-5.5"),
+                "~~ End of report ~~",
+                thyrocareRow("REPORT RELEASED ON", "", "2024", "", ""));
+
+        JsonNode analysis = parse(report);
+
+        assertThat(analysis.path("testResults")).extracting(row -> row.path("testName").asText())
+                .containsExactly("TOTAL TRIIODOTHYRONINE (T3)", "TOTAL THYROXINE (T4)", "THYROID STIMULATING HORMONE (TSH)");
+    }
+
+    @Test
+    void endsTablesAtTheFirstBlankLineWhenTheTemplateHasNoFooter(@TempDir Path templates) throws Exception {
+        Path location = Files.writeString(templates.resolve("lab-templates.json"), """
+                [{"name": "Metropolis", "signatures": ["(?i)metropolis"], "header": "(?i)investigation\\\\s+observed",
+                  "rowPattern": "^(?<testName>[A-Za-z][A-Za-z0-9 ]*?)\\\\s{2,}(?<value>\\\\d+(?:\\\\.\\\\d+)?)\\\\s*$"}]
+                """);
+        ReflectionTestUtils.setField(parser, "templatesLocation", location.toUri().toString());
+        parser.loadTemplates();
+
+        JsonNode analysis = parse(String.join("\n",
+                "Metropolis Healthcare Ltd",
+                "Investigation          Observed Value",
+                "",
+                "Haemoglobin            11.2",
+                "Serum Creatinine       0.8",
+                "Vitamin B12            180",
+                "",
+                "Lab Code               4021"));
+
+        assertThat(analysis.path("testResults")).extracting(row -> row.path("testName").asText())
+                .containsExactly("Haemoglobin", "Serum Creatinine", "Vitamin B12");
+    }
+
+    @Test
+    void skipsTemplateWhoseHeaderIsMissing() {
+        String report = String.join("\n",
+                "THYROCARE TECHNOLOGIES LTD",
+                thyrocareRow("TOTAL TRIIODOTHYRONINE (T3)", "C.L.I.A", "112", "ng/dL", "60-200"),
+                thyrocareRow("TOTAL THYROXINE (T4)", "C.L.I.A", "13.9", "ug/dL", "4.5-12"),
+                thyrocareRow("THYROID STIMULATING HORMONE (TSH)", "C.L.I.A", "0.21", "uIU/mL", "0.3-5.5"));
+
+        assertThat(parser.parse(report)).isEmpty();
+    }
+
+    @Test
+    void leavesUnknownLabsAndShortReportsToTheAi() {
+        assertThat(parser.parse(LAL_PATH_LABS.replace("Dr Lal PathLabs", "City Diagnostics"))).isEmpty();
+        assertThat(parser.parse(METROPOLIS.substring(0, METROPOLIS.indexOf("Serum")))).isEmpty();
+    }
+
+    @Test
+    void doesNothingWhenDisabled() {
+        ReflectionTestUtils.setField(parser, "enabled", false);
+
+        assertThat(parser.parse(LAL_PATH_LABS)).isEmpty();
+    }
+
+    private JsonNode parse(String report) throws Exception {
+        Optional<String> analysis = parser.parse(report);
+        assertThat(analysis).isPresent();
+        return objectMapper.readTree(analysis.get());
+    }
+
+    // Lays a row out on the template's columns: name 0-40, technology 40-52, value 52-64, unit 64-76, range 76-
+    private static String thyrocareRow(String testName, String technology, String value, String unit, String range) {
+        return String.format("%-40s%-12s%-12s%-12s%s", testName, technology, value, unit, range);
+    }
+}
@@ -0,0 +1,92 @@
+package com.healthcare.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.InstanceOfAssertFactories.COLLECTION;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.healthcare.model.MedicineScan;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MedicineImageLifecycleServiceTest {
+
+    @TempDir
+    Path root;
+
+    private MongoTemplate mongoTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private MedicineImageLifecycleService service;
+    private Path images;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mongoTemplate = mock(MongoTemplate.class);
+        // No scan references any file
+        when(mongoTemplate.exists(any(Query.class), eq(MedicineScan.class))).thenReturn(false);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new MedicineImageLifecycleService(new LocalFileStore(root.toString()), new FileStorageService(),
+                mock(OcrImagePreprocessor.class), mongoTemplate, meterRegistry);
+        ReflectionTestUtils.setField(service, "storageRoot", root.toString());
+        ReflectionTestUtils.setField(service, "legacyImageStoragePath", "uploads/medicine_images");
+        ReflectionTestUtils.setField(service, "recompressAfter", Duration.ofDays(7));
+        ReflectionTestUtils.setField(service, "coldAfter", Duration.ofDays(30));
+        ReflectionTestUtils.setField(service, "orphanGrace", Duration.ofDays(30));
+        ReflectionTestUtils.setField(service, "jpegQuality", 0.7f);
+        ReflectionTestUtils.setField(service, "maxBytesPerSecond", 0L);
+        ReflectionTestUtils.setField(service, "maxFilesPerSweep", 500);
+        images = Files.createDirectories(root.resolve(FileStore.MEDICINE_IMAGES_BUCKET));
+    }
+
+    @Test
+    void orphansPastTheGracePeriodAreDeleted() throws IOException {
+        Path old = image("old.jpg", Duration.ofDays(45));
+        Path recent = image("recent.jpg", Duration.ofDays(10));
+
+        service.sweep();
+
+        assertThat(old).doesNotExist();
+        assertThat(recent).exists();
+        assertThat(meterRegistry.get("medicine.images.lifecycle").tag("action", "orphan_deleted").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void orphansWithinTheGracePeriodAreCheckedOnceThenDeletedWhenTheyExpire() throws IOException {
+        Path recent = image("recent.jpg", Duration.ofDays(10));
+
+        service.sweep();
+        service.sweep();
+        assertThat(recent).exists();
+        verify(mongoTemplate, times(1)).exists(any(Query.class), eq(MedicineScan.class));
+
+        Files.setLastModifiedTime(recent, FileTime.from(Instant.now().minus(Duration.ofDays(31))));
+        service.sweep();
+
+        assertThat(recent).doesNotExist();
+        assertThat(ReflectionTestUtils.getField(service, "unreferenced")).asInstanceOf(COLLECTION).isEmpty();
+    }
+
+    private Path image(String name, Duration age) throws IOException {
+        Path file = Files.write(images.resolve(name), new byte[] {1, 2, 3});
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(age)));
+        return file;
+    }
+}
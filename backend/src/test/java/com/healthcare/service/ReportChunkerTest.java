@@ -0,0 +1,68 @@
+package com.healthcare.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ReportChunkerTest {
+
+    private static final String GLUCOSE_DAY_1 = "{\"summary\": \"Day 1 fasting glucose is normal.\", \"testResults\": ["
+            + "{\"testName\": \"Glucose\", \"value\": \"92\", \"unit\": \"mg/dL\"}]}";
+    private static final String GLUCOSE_DAY_2 = "{\"summary\": \"Day 2 fasting glucose is normal.\", \"testResults\": ["
+            + "{\"testName\": \"Glucose\", \"value\": \"92\", \"unit\": \"mg/dL\"}, "
+            + "{\"testName\": \"HbA1c\", \"value\": \"5.4\", \"unit\": \"%\"}]}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ReportChunker reportChunker;
+
+    @BeforeEach
+    void setUp() {
+        reportChunker = new ReportChunker();
+        ReflectionTestUtils.setField(reportChunker, "maxChunkChars", 40);
+    }
+
+    @Test
+    void splitsOnPageBoundariesWithoutCuttingLines() {
+        String text = "Hemoglobin 13.2 g/dL 12-16\nWBC 7200 /uL 4000-11000"
+                + PdfTextExtractor.PAGE_SEPARATOR + "Platelets 250000 /uL 150000-450000";
+
+        List<String> chunks = reportChunker.split(text);
+
+        assertThat(chunks).containsExactly("Hemoglobin 13.2 g/dL 12-16", "WBC 7200 /uL 4000-11000", "Platelets 250000 /uL 150000-450000");
+    }
+
+    @Test
+    void keepsRepeatedMeasurementsFromDifferentChunks() throws Exception {
+        ReportChunker.MergedAnalysis merged = reportChunker.merge(List.of(GLUCOSE_DAY_1, GLUCOSE_DAY_2));
+
+        assertThat(merged.complete()).isTrue();
+        JsonNode json = objectMapper.readTree(merged.json());
+        assertThat(json.path("summary").asText()).isEqualTo("Day 1 fasting glucose is normal. Day 2 fasting glucose is normal.");
+        assertThat(json.path("testResults")).extracting(result -> result.path("testName").asText())
+                .containsExactly("Glucose", "Glucose", "HbA1c");
+    }
+
+    @Test
+    void fallbackAnswerForOneChunkMakesTheMergeIncomplete() {
+        ReportChunker.MergedAnalysis merged = reportChunker.merge(
+                List.of(GLUCOSE_DAY_1, AiService.RATE_LIMITED, GLUCOSE_DAY_2));
+
+        assertThat(merged.complete()).isFalse();
+        assertThat(merged.json()).contains("HbA1c");
+    }
+
+    @Test
+    void noParsableChunkGivesNoJson() {
+        ReportChunker.MergedAnalysis merged = reportChunker.merge(List.of(AiService.UNAVAILABLE, "not json"));
+
+        assertThat(merged.complete()).isFalse();
+        assertThat(merged.json()).isNull();
+    }
+}
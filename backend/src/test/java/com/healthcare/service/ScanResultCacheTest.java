@@ -0,0 +1,107 @@
+package com.healthcare.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.healthcare.model.MedicineScan;
+import com.healthcare.repository.MedicineScanRepository;
+import com.healthcare.repository.ScanImageHashRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ScanResultCacheTest {
+
+    private static final String DOLO_650 = "{\"brandName\": \"Dolo 650\"}";
+
+    private ScanResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        MedicineScanRepository scanRepository = mock(MedicineScanRepository.class);
+        when(scanRepository.findById(anyString())).thenAnswer(call -> Optional.of(scan(call.getArgument(0), "Dolo 650 Paracetamol Tablets")));
+        cache = new ScanResultCache(mock(ScanImageHashRepository.class), scanRepository, mock(MongoTemplate.class),
+                new FileStorageService(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxDistance", 2);
+        ReflectionTestUtils.setField(cache, "minTextSimilarity", 0.8);
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofDays(7));
+        ReflectionTestUtils.setField(cache, "maxEntries", 50000);
+        cache.createIndex();
+    }
+
+    @Test
+    void onlyByteIdenticalImagesAreReusedDirectly() {
+        cache.put(new ScanResultCache.ImageKey("aaaa", 0x0F0F0F0F0F0F0F0FL), scan("scan-1", "Dolo 650"));
+
+        Optional<ScanResultCache.Match> sameBytes = cache.find(new ScanResultCache.ImageKey("aaaa", 0x0F0F0F0F0F0F0F0FL));
+        Optional<ScanResultCache.Match> sameHash = cache.find(new ScanResultCache.ImageKey("bbbb", 0x0F0F0F0F0F0F0F0FL));
+
+        assertThat(sameBytes).get().extracting(ScanResultCache.Match::identical).isEqualTo(true);
+        assertThat(sameHash).get().extracting(ScanResultCache.Match::identical).isEqualTo(false);
+        assertThat(sameHash.get().distance()).isZero();
+    }
+
+    @Test
+    void equalHashOfAnotherStrengthFailsConfirmation() {
+        cache.put(new ScanResultCache.ImageKey("aaaa", 42L), scan("scan-1", "Dolo 650"));
+        ScanResultCache.Match candidate = cache.find(new ScanResultCache.ImageKey("bbbb", 42L)).orElseThrow();
+
+        assertThat(cache.confirm(candidate, "Dolo 650 Paracetamol Tablets")).isTrue();
+        assertThat(cache.confirm(candidate, "Dolo 500 Paracetamol Tablets")).isFalse();
+    }
+
+    @Test
+    void indexFindsEveryHashWithinTheMaximumDistance() {
+        Random random = new Random(7);
+        long[] stored = new long[2000];
+        for (int i = 0; i < stored.length; i++) {
+            stored[i] = random.nextLong();
+            cache.put(new ScanResultCache.ImageKey("content-" + i, stored[i]), scan("scan-" + i, "Dolo 650"));
+        }
+
+        for (int i = 0; i < stored.length; i += 7) {
+            // Flip up to two bits, spread over the segments at random
+            long query = stored[i] ^ (1L << random.nextInt(64)) ^ (random.nextBoolean() ? 1L << random.nextInt(64) : 0);
+            Optional<ScanResultCache.Match> match = cache.find(new ScanResultCache.ImageKey("other", query));
+
+            assertThat(match).isPresent();
+            assertThat(match.get().distance()).isLessThanOrEqualTo(Long.bitCount(stored[i] ^ query));
+        }
+    }
+
+    @Test
+    void hashesBeyondTheMaximumDistanceAreMisses() {
+        cache.put(new ScanResultCache.ImageKey("aaaa", 0L), scan("scan-1", "Dolo 650"));
+
+        assertThat(cache.find(new ScanResultCache.ImageKey("bbbb", 0b111L))).isEmpty();
+        assertThat(cache.find(new ScanResultCache.ImageKey("bbbb", 0b11L))).isPresent();
+    }
+
+    @Test
+    void segmentsCoverAllSixtyFourBits() {
+        ScanResultCache.HammingIndex index = new ScanResultCache.HammingIndex(3);
+        index.add(-1L);
+
+        assertThat(index.candidates(-1L)).containsExactly(-1L);
+        assertThat(index.candidates(0L)).isEmpty();
+        index.remove(-1L);
+        assertThat(index.candidates(-1L)).isEmpty();
+    }
+
+    private static MedicineScan scan(String id, String extractedText) {
+        MedicineScan scan = new MedicineScan("/uploads/medicine-images/" + id + ".jpg", extractedText, DOLO_650);
+        scan.setId(id);
+        return scan;
+    }
+}
@@ -3,6 +3,7 @@ import { Button } from './ui/button';
 import { Card, CardContent, CardDescription, CardHeader, CardTitle } from './ui/card';
 import { Badge } from './ui/badge';
 import { Textarea } from './ui/textarea';
+import { fetchReport } from '../utils/api';
 
 import {
   ArrowLeft,
@@ -126,14 +127,14 @@ export function ReportViewer({ report, onNavigate, userType }: ReportViewerProps
   const [parseError, setParseError] = useState<string | null>(null);
 
   useEffect(() => {
-    if (report?.extractedData) {
+    const applyExtractedData = (data: any) => {
       // Ensure extractedData is a string before trying to parse.
-      if (typeof report.extractedData !== 'string') {
-        setExtractedData(report.extractedData); // Assume it's already an object
+      if (typeof data !== 'string') {
+        setExtractedData(data); // Assume it's already an object
         return;
       }
       try {
-        const parsed = JSON.parse(report.extractedData);
+        const parsed = JSON.parse(data);
         setExtractedData(parsed);
         setParseError(null);
       } catch (error) {
@@ -141,6 +142,19 @@ export function ReportViewer({ report, onNavigate, userType }: ReportViewerProps
         setParseError('Failed to parse analysis data');
         setExtractedData(null);
       }
+    };
+
+    if (report?.extractedData) {
+      applyExtractedData(report.extractedData);
+    } else if (report?.id) {
+      // Report lists omit the analysis; load it for the report being viewed
+      fetchReport(report.id)
+        .then((detail) => {
+          if (detail?.extractedData) {
+            applyExtractedData(detail.extractedData);
+          }
+        })
+        .catch((error) => console.error('Error loading report details:', error));
     }
   }, [report]);
 
@@ -41,6 +41,11 @@ export const fetchPatientReports = async (patientId: string) => {
   return response.data;
 };
 
+export const fetchReport = async (reportId: string) => {
+  const response = await axios.get(`${API_BASE_URL}/reports/${reportId}`);
+  return response.data;
+};
+
 export const fetchAppointments = async (userId: string, userType: string) => {
   const response = await axios.get(`${API_BASE_URL}/appointments/${userType}/${userId}`);
   return response.data;